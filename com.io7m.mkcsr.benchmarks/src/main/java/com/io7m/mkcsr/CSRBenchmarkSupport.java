@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Functions shared by the benchmarks.
+ */
+
+final class CSRBenchmarkSupport
+{
+  private CSRBenchmarkSupport()
+  {
+
+  }
+
+  /**
+   * Construct the provider that the pipeline uses ahead of the measured
+   * code. The provider is deliberately not added to the global provider
+   * list, so that the benchmarks see exactly the lookups the program makes.
+   */
+
+  static void loadProvider()
+  {
+    CSRProviders.bouncyCastle();
+  }
+
+  static CSRDetails details(
+    final Path directory,
+    final CSRKeyAlgorithm algorithm)
+    throws ValidationProblem
+  {
+    final char[] pass = "benchmark-password".toCharArray();
+    return new CSRDetails(
+      new CSRUserName("benchmark"),
+      new CSRPassword(pass, pass.clone()),
+      algorithm,
+      directory.toFile());
+  }
+
+  static Path createDirectory()
+    throws IOException
+  {
+    return Files.createTempDirectory("mkcsr-benchmark");
+  }
+
+  static void deleteDirectory(
+    final Path directory)
+  {
+    final File[] files = directory.toFile().listFiles();
+    if (files != null) {
+      for (final File f : files) {
+        f.delete();
+      }
+    }
+    directory.toFile().delete();
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PEM encoding and hashing of CSRs, and committing of CSRs and CSR hashes
+ * to disk with and without synchronization.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSROutputBenchmark
+{
+  /**
+   * {@code true} if committed files are synchronized to disk.
+   */
+
+  @Param({"true", "false"})
+  public boolean sync;
+
+  private Path directory;
+  private CSRDetails details;
+  private byte[] csr;
+  private byte[] csr_data;
+  private byte[] hash_data;
+  private CSRFileCommitter committer;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public CSROutputBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup
+  public void setup()
+    throws Exception
+  {
+    CSRBenchmarkSupport.loadProvider();
+    this.directory = CSRBenchmarkSupport.createDirectory();
+    this.details =
+      CSRBenchmarkSupport.details(this.directory, CSRKeyAlgorithm.EC_P256);
+    final KeyPair keypair = CSRKeyAlgorithm.EC_P256.generateKeyPair();
+    this.csr = this.details.generateCSR(keypair);
+    this.csr_data = this.details.encodeCSR(this.csr);
+    this.hash_data =
+      this.details.encodeCSRHash(CSRHash.sha256(this.csr_data));
+    this.committer = CSRFileCommitter.createInline(this.sync);
+  }
+
+  /**
+   * Tear down the benchmark.
+   */
+
+  @TearDown
+  public void tearDown()
+  {
+    this.committer.close();
+    CSRBenchmarkSupport.deleteDirectory(this.directory);
+  }
+
+  /**
+   * Encode and hash a CSR.
+   *
+   * @return The hash of the CSR
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public Object encodeCSR()
+    throws IOException
+  {
+    return CSRHash.sha256(this.details.encodeCSR(this.csr));
+  }
+
+  /**
+   * Write and commit a CSR.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void writeCSR()
+    throws IOException
+  {
+    this.commit(this.details.getCSRFile(), this.csr_data);
+  }
+
+  /**
+   * Write and commit both a CSR and its hash, as the pipeline does.
+   *
+   * @throws IOException On errors
+   */
+
+  @Benchmark
+  public void writeCSRAndHash()
+    throws IOException
+  {
+    final List<CSRPendingFile> files = new ArrayList<>(2);
+    files.add(CSRPendingFile.write(this.details.getCSRFile(), this.csr_data));
+    files.add(CSRPendingFile.write(this.details.getHashFile(), this.hash_data));
+    this.committer.commit(files).join();
+  }
+
+  private void commit(
+    final File file,
+    final byte[] data)
+    throws IOException
+  {
+    final List<CSRPendingFile> files = new ArrayList<>(1);
+    files.add(CSRPendingFile.write(file, data));
+    this.committer.commit(files).join();
+  }
+}
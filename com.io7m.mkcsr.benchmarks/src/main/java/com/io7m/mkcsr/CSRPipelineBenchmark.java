@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The complete pipeline, from key generation to the written hash.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CSRPipelineBenchmark
+{
+  @Param({"RSA_2048", "RSA_4096", "EC_P256", "ED25519"})
+  private String algorithm_name;
+
+  private CSRKeyAlgorithm algorithm;
+
+  private Path directory;
+  private CSRDetails details;
+  private CSRKeyPairSourceType keys;
+  private CSRKeyEncryption encryption;
+  private CSRStageExecutor stages;
+  private CSROutputSinkType sink;
+  private CSRProgressListenerType listener;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public CSRPipelineBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup
+  public void setup()
+    throws Exception
+  {
+    CSRBenchmarkSupport.loadProvider();
+    this.algorithm = CSRKeyAlgorithm.valueOf(this.algorithm_name);
+    this.directory = CSRBenchmarkSupport.createDirectory();
+    this.details = CSRBenchmarkSupport.details(this.directory, this.algorithm);
+    this.keys = new CSRKeyPairSourceDirect();
+    this.encryption = CSRKeyEncryption.defaults();
+    this.stages = CSRStageExecutor.createDefault();
+    this.sink = CSROutputSinkFiles.createGrouping();
+    this.listener = new CSRProgressListenerType() { };
+  }
+
+  /**
+   * Tear down the benchmark.
+   *
+   * @throws IOException On errors
+   */
+
+  @TearDown
+  public void tearDown()
+    throws IOException
+  {
+    this.stages.close();
+    this.sink.close();
+    CSRBenchmarkSupport.deleteDirectory(this.directory);
+  }
+
+  /**
+   * Execute the complete pipeline on the calling thread.
+   *
+   * @throws Exception On errors
+   */
+
+  @Benchmark
+  public void pipeline()
+    throws Exception
+  {
+    CSRPipeline.execute(
+      this.details, this.keys, this.encryption, this.listener);
+  }
+
+  /**
+   * Execute the complete pipeline as a graph of stages.
+   *
+   * @return The CSR hash
+   */
+
+  @Benchmark
+  public Object pipelineStaged()
+  {
+    return CSRPipeline.executeAsync(
+      this.stages, this.sink, this.details, this.keys, this.encryption, this.listener)
+      .join();
+  }
+}
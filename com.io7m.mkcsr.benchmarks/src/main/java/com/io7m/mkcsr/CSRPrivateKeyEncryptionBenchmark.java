@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PKCS#8 private key encryption with each scheme at multiples of its
+ * minimum cost (the iteration count, or the scrypt work {@code N * p}).
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CSRPrivateKeyEncryptionBenchmark
+{
+  @Param({"RSA_4096", "EC_P256"})
+  private String algorithm_name;
+
+  private CSRKeyAlgorithm algorithm;
+
+  @Param({"PBE_SHA1_3DES", "PBES2_AES256_SHA256", "SCRYPT_AES256"})
+  private String scheme_name;
+
+  @Param({"1", "4", "16"})
+  private int cost_multiplier;
+
+  private CSRKeyEncryption encryption;
+
+  private KeyPair keypair;
+  private char[] password;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public CSRPrivateKeyEncryptionBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws NoSuchAlgorithmException On errors
+   * @throws NoSuchProviderException  On errors
+   */
+
+  @Setup
+  public void setup()
+    throws NoSuchAlgorithmException, NoSuchProviderException
+  {
+    CSRBenchmarkSupport.loadProvider();
+    this.algorithm = CSRKeyAlgorithm.valueOf(this.algorithm_name);
+    this.keypair = this.algorithm.generateKeyPair();
+    final CSRKeyEncryptionScheme scheme =
+      CSRKeyEncryptionScheme.valueOf(this.scheme_name);
+    this.encryption =
+      new CSRKeyEncryption(
+        scheme, scheme.getMinimumCost() * this.cost_multiplier);
+    this.password = "benchmark-password".toCharArray();
+  }
+
+  /**
+   * @return An encrypted key
+   *
+   * @throws OperatorCreationException On errors
+   * @throws IOException               On errors
+   */
+
+  @Benchmark
+  public PemObject encryptPrivateKey()
+    throws OperatorCreationException, IOException
+  {
+    return this.encryption.encrypt(this.keypair.getPrivate(), this.password);
+  }
+}
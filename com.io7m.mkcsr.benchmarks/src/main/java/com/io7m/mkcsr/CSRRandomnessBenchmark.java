@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing a 32 byte salt from each random number generator strategy, on
+ * one thread and on four threads at once.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSRRandomnessBenchmark
+{
+  @Param({"default", "NativePRNGNonBlocking", "DRBG", "SHA1PRNG"})
+  private String algorithm;
+
+  @Param({"false", "true"})
+  private boolean shared;
+
+  @Param({"0", "64"})
+  private long reseed_interval;
+
+  private CSRRandomness randomness;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public CSRRandomnessBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws NoSuchAlgorithmException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws NoSuchAlgorithmException
+  {
+    final String name;
+    if ("default".equals(this.algorithm)) {
+      name = null;
+    } else {
+      name = this.algorithm;
+    }
+    this.randomness =
+      new CSRRandomness(name, this.shared, this.reseed_interval);
+  }
+
+  /**
+   * @return A salt
+   */
+
+  @Benchmark
+  public byte[] salt()
+  {
+    final byte[] salt = new byte[32];
+    this.randomness.random().nextBytes(salt);
+    return salt;
+  }
+
+  /**
+   * @return A salt
+   */
+
+  @Benchmark
+  @Threads(4)
+  public byte[] saltContended()
+  {
+    final byte[] salt = new byte[32];
+    this.randomness.random().nextBytes(salt);
+    return salt;
+  }
+}
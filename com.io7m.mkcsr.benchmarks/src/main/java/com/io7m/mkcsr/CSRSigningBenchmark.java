@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.bouncycastle.operator.OperatorCreationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSR construction and signing, for each supported algorithm.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSRSigningBenchmark
+{
+  @Param({"RSA_2048", "RSA_3072", "RSA_4096", "EC_P256", "EC_P384", "ED25519"})
+  private String algorithm_name;
+
+  private CSRKeyAlgorithm algorithm;
+
+  private Path directory;
+  private CSRDetails details;
+  private KeyPair keypair;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public CSRSigningBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup
+  public void setup()
+    throws Exception
+  {
+    CSRBenchmarkSupport.loadProvider();
+    this.algorithm = CSRKeyAlgorithm.valueOf(this.algorithm_name);
+    this.directory = CSRBenchmarkSupport.createDirectory();
+    this.details = CSRBenchmarkSupport.details(this.directory, this.algorithm);
+    this.keypair = this.algorithm.generateKeyPair();
+  }
+
+  /**
+   * Tear down the benchmark.
+   */
+
+  @TearDown
+  public void tearDown()
+  {
+    CSRBenchmarkSupport.deleteDirectory(this.directory);
+  }
+
+  /**
+   * @return A signed CSR
+   *
+   * @throws OperatorCreationException On errors
+   * @throws IOException               On errors
+   */
+
+  @Benchmark
+  public byte[] generateCSR()
+    throws OperatorCreationException, IOException
+  {
+    return this.details.generateCSR(this.keypair);
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The wall-clock time taken by a fresh JVM to run a single command-line
+ * invocation, from process creation to exit. The {@code gui} command
+ * only loads the Swing program's main class, and gives the cost that the
+ * command-line entry point avoids.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class CSRStartupBenchmark
+{
+  private static final byte[] PASSWORD;
+
+  static {
+    PASSWORD = "benchmark-password\nbenchmark-password\n"
+      .getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The command to run.
+   */
+
+  @Param({"version", "verify", "generate", "gui"})
+  public String command;
+
+  private Path directory;
+  private List<String> arguments;
+  private File output;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public CSRStartupBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup
+  public void setup()
+    throws Exception
+  {
+    CSRBenchmarkSupport.loadProvider();
+    this.directory = CSRBenchmarkSupport.createDirectory();
+
+    final CSRDetails details =
+      CSRBenchmarkSupport.details(this.directory, CSRKeyAlgorithm.ED25519);
+    CSRPipeline.execute(
+      details,
+      new CSRKeyPairSourceDirect(),
+      CSRKeyEncryption.defaults(),
+      new CSRProgressListenerType() { });
+
+    this.output = this.directory.resolve("output.txt").toFile();
+    this.arguments = new ArrayList<>(8);
+    this.arguments.add(
+      Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    this.arguments.add("-cp");
+    this.arguments.add(System.getProperty("java.class.path"));
+
+    switch (this.command) {
+      case "version":
+        this.arguments.add(MakeCSRCommand.class.getName());
+        this.arguments.add("version");
+        break;
+      case "verify":
+        this.arguments.add(MakeCSRCommand.class.getName());
+        this.arguments.add("verify");
+        this.arguments.add(details.getCSRFile().toString());
+        break;
+      case "generate":
+        this.arguments.add(MakeCSRCommand.class.getName());
+        this.arguments.add("generate");
+        this.arguments.add("benchmark");
+        this.arguments.add(this.directory.toString());
+        this.arguments.add(CSRKeyAlgorithm.ED25519.name());
+        break;
+      case "gui":
+        this.arguments.add("-Djava.awt.headless=true");
+        this.arguments.add(CSRStartupGUIProbe.class.getName());
+        break;
+      default:
+        throw new IllegalArgumentException(this.command);
+    }
+  }
+
+  /**
+   * Tear down the benchmark.
+   */
+
+  @TearDown
+  public void tearDown()
+  {
+    CSRBenchmarkSupport.deleteDirectory(this.directory);
+  }
+
+  /**
+   * @return The exit code of the process
+   *
+   * @throws IOException          On I/O errors
+   * @throws InterruptedException If interrupted
+   */
+
+  @Benchmark
+  public int run()
+    throws IOException, InterruptedException
+  {
+    final Process process =
+      new ProcessBuilder(this.arguments)
+        .redirectErrorStream(true)
+        .redirectOutput(this.output)
+        .start();
+
+    try (OutputStream input = process.getOutputStream()) {
+      input.write(PASSWORD);
+    }
+
+    final int code = process.waitFor();
+    if (code != 0) {
+      throw new IllegalStateException(
+        "Command " + this.command + " failed with exit code " + code);
+    }
+    return code;
+  }
+}
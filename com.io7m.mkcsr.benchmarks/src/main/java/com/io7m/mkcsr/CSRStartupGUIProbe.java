@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+/**
+ * Loads and initializes the Swing program's main class and then exits,
+ * for comparison with the command-line entry point in
+ * {@link CSRStartupBenchmark}.
+ */
+
+public final class CSRStartupGUIProbe
+{
+  private CSRStartupGUIProbe()
+  {
+
+  }
+
+  /**
+   * Main function.
+   *
+   * @param args Command line arguments.
+   *
+   * @throws ClassNotFoundException If the main class is missing
+   */
+
+  // CHECKSTYLE:OFF
+  public static void main(
+    // CHECKSTYLE:ON
+    final String[] args)
+    throws ClassNotFoundException
+  {
+    Class.forName("com.io7m.mkcsr.MakeCSR");
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A batch generator that executes the pipeline for many entries on a
+ * bounded pool of worker threads.
+ *
+ * Successive entries are pipelined: several entries are in flight at any
+ * one time, so that the files for one entry are written while the keys
+ * for the following entries are generated. Bounding the number of entries
+ * in flight (including completed entries whose results have not yet been
+ * delivered) bounds the number of key pairs and results held in memory,
+ * regardless of the number of entries in the batch. When I/O stages
+ * run on platform threads, up to twice as many entries as there are CPU
+ * threads are in flight. When I/O stages run on virtual threads, many
+ * more entries are allowed in flight so that slow writes do not hold up
+ * key generation.
+ */
+
+final class CSRBatch
+{
+  private static final Logger LOG;
+  private static final int VIRTUAL_IN_FLIGHT;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRBatch.class);
+    VIRTUAL_IN_FLIGHT = 1024;
+  }
+
+  private final int threads;
+  private final CSROutputSinkType sink;
+  private final CSRKeyPairSourceType keys;
+  private final CSRKeyEncryption encryption;
+  private final CSRProgressListenerType listener;
+
+  CSRBatch(
+    final int in_threads,
+    final CSROutputSinkType in_sink,
+    final CSRKeyPairSourceType in_keys,
+    final CSRKeyEncryption in_encryption,
+    final CSRProgressListenerType in_listener)
+  {
+    if (in_threads < 1) {
+      throw new IllegalArgumentException(
+        "Thread count must be positive (received " + in_threads + ")");
+    }
+    this.threads = in_threads;
+    this.sink = NullCheck.notNull(in_sink, "Sink");
+    this.keys = NullCheck.notNull(in_keys, "Keys");
+    this.encryption = NullCheck.notNull(in_encryption, "Encryption");
+    this.listener = NullCheck.notNull(in_listener, "Listener");
+  }
+
+  static int defaultThreadCount()
+  {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  private CompletableFuture<CSRBatchResult> executeOne(
+    final CSRStageExecutor stages,
+    final CSRDetails details)
+  {
+    final long time_then = System.nanoTime();
+
+    return CSRPipeline.executeAsync(
+      stages,
+      this.sink,
+      details,
+      this.keys,
+      this.encryption,
+      this.listener)
+      .handle((hash, x) -> {
+        final long elapsed = System.nanoTime() - time_then;
+        if (x == null) {
+          return CSRBatchResult.succeeded(details, hash, elapsed);
+        }
+
+        final Throwable cause = CSRStageExecutor.unwrap(x);
+        if (cause instanceof Exception) {
+          return CSRBatchResult.failed(details, (Exception) cause, elapsed);
+        }
+        return CSRBatchResult.failed(details, new Exception(cause), elapsed);
+      });
+  }
+
+  private int maximumInFlight(
+    final CSRStageExecutor stages)
+  {
+    final int default_limit;
+    if (stages.isIOVirtual()) {
+      default_limit = Math.max(VIRTUAL_IN_FLIGHT, this.threads * 2);
+    } else {
+      default_limit = this.threads * 2;
+    }
+    return Math.max(1, Integer.getInteger(
+      "com.io7m.mkcsr.batch.maxInFlight", default_limit).intValue());
+  }
+
+  /**
+   * Execute the pipeline for all of the given entries, blocking until
+   * every entry has either completed or failed. Entries are taken from
+   * the iterator only as capacity becomes available, so the iterator may
+   * produce entries lazily from an arbitrarily large source. Results are
+   * delivered to the receiver on the calling thread, in the order that
+   * the entries were given.
+   *
+   * @param requests The entries
+   * @param receiver A receiver of results
+   */
+
+  void execute(
+    final Iterator<CSRDetails> requests,
+    final Consumer<CSRBatchResult> receiver)
+  {
+    LOG.info("executing requests on {} threads", Integer.valueOf(this.threads));
+
+    try (CSRStageExecutor stages = CSRStageExecutor.create(this.threads)) {
+      final int limit = this.maximumInFlight(stages);
+      final Deque<CompletableFuture<CSRBatchResult>> window =
+        new ArrayDeque<>(limit);
+
+      while (requests.hasNext()) {
+        if (window.size() >= limit) {
+          receiver.accept(window.removeFirst().join());
+        }
+        window.addLast(this.executeOne(stages, requests.next()));
+
+        while (!window.isEmpty() && window.peekFirst().isDone()) {
+          receiver.accept(window.removeFirst().join());
+        }
+      }
+
+      while (!window.isEmpty()) {
+        receiver.accept(window.removeFirst().join());
+      }
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+
+/**
+ * The result of executing the pipeline for a single entry in a batch.
+ */
+
+final class CSRBatchResult
+{
+  private final CSRDetails details;
+  private final @Nullable CSRHash hash;
+  private final @Nullable Exception failure;
+  private final long elapsed_nanos;
+
+  private CSRBatchResult(
+    final CSRDetails in_details,
+    final @Nullable CSRHash in_hash,
+    final @Nullable Exception in_failure,
+    final long in_elapsed_nanos)
+  {
+    this.details = NullCheck.notNull(in_details, "Details");
+    this.hash = in_hash;
+    this.failure = in_failure;
+    this.elapsed_nanos = in_elapsed_nanos;
+  }
+
+  static CSRBatchResult succeeded(
+    final CSRDetails in_details,
+    final CSRHash in_hash,
+    final long in_elapsed_nanos)
+  {
+    return new CSRBatchResult(
+      in_details,
+      NullCheck.notNull(in_hash, "Hash"),
+      null,
+      in_elapsed_nanos);
+  }
+
+  static CSRBatchResult failed(
+    final CSRDetails in_details,
+    final Exception in_failure,
+    final long in_elapsed_nanos)
+  {
+    return new CSRBatchResult(
+      in_details,
+      null,
+      NullCheck.notNull(in_failure, "Failure"),
+      in_elapsed_nanos);
+  }
+
+  public CSRDetails getDetails()
+  {
+    return this.details;
+  }
+
+  public boolean isSuccessful()
+  {
+    return this.failure == null;
+  }
+
+  public CSRHash getHash()
+  {
+    final CSRHash hv = this.hash;
+    if (hv == null) {
+      throw new IllegalStateException("Entry did not complete successfully");
+    }
+    return hv;
+  }
+
+  public Exception getFailure()
+  {
+    final Exception x = this.failure;
+    if (x == null) {
+      throw new IllegalStateException("Entry completed successfully");
+    }
+    return x;
+  }
+
+  public long getElapsedNanos()
+  {
+    return this.elapsed_nanos;
+  }
+}
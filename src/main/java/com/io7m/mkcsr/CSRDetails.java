@@ -17,132 +17,69 @@
 package com.io7m.mkcsr;
 
 import com.io7m.jnull.NullCheck;
-import com.io7m.jnull.Nullable;
-import com.io7m.junreachable.UnreachableCodeException;
-import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
-import org.bouncycastle.asn1.x500.X500Name;
-import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
-import org.bouncycastle.asn1.x509.BasicConstraints;
-import org.bouncycastle.asn1.x509.Extension;
-import org.bouncycastle.asn1.x509.ExtensionsGenerator;
-import org.bouncycastle.asn1.x509.KeyUsage;
-import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
-import org.bouncycastle.crypto.util.PrivateKeyFactory;
-import org.bouncycastle.openssl.PKCS8Generator;
 import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
-import org.bouncycastle.openssl.jcajce.JcaPKCS8Generator;
-import org.bouncycastle.openssl.jcajce.JceOpenSSLPKCS8EncryptorBuilder;
-import org.bouncycastle.operator.ContentSigner;
-import org.bouncycastle.operator.DefaultDigestAlgorithmIdentifierFinder;
-import org.bouncycastle.operator.DefaultSignatureAlgorithmIdentifierFinder;
 import org.bouncycastle.operator.OperatorCreationException;
-import org.bouncycastle.operator.OutputEncryptor;
-import org.bouncycastle.operator.bc.BcRSAContentSignerBuilder;
-import org.bouncycastle.pkcs.PKCS10CertificationRequest;
-import org.bouncycastle.pkcs.PKCS10CertificationRequestBuilder;
-import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
 import org.bouncycastle.util.io.pem.PemObject;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.SecureRandom;
 
 final class CSRDetails
 {
+  private static final byte[] LINE_SEPARATOR;
+
+  static {
+    LINE_SEPARATOR =
+      System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+  }
+
   private final CSRUserName user_name;
   private final CSRPassword password;
+  private final CSRKeyAlgorithm algorithm;
   private final File directory;
   private final File private_key;
   private final File csr;
   private final File hash_file;
-  private final MessageDigest digest;
-  private @Nullable String hash_value;
 
   CSRDetails(
     final CSRUserName in_user_name,
     final CSRPassword in_password,
+    final CSRKeyAlgorithm in_algorithm,
     final File output)
   {
-    try {
-      this.user_name = NullCheck.notNull(in_user_name, "User name");
-      this.password = NullCheck.notNull(in_password, "Password");
-      this.directory = NullCheck.notNull(output, "File");
-      this.private_key = new File(output, in_user_name.toString() + ".key");
-      this.csr = new File(output, in_user_name.toString() + ".csr");
-      this.hash_file = new File(output, in_user_name.toString() + ".sha256");
-      this.digest = MessageDigest.getInstance("SHA256");
-      this.hash_value = null;
-    } catch (final NoSuchAlgorithmException e) {
-      throw new UnreachableCodeException(e);
-    }
+    this(in_user_name, in_password, in_algorithm, output, CSROutputLayout.FLAT);
   }
 
-  static KeyPair generateKeyPair()
-    throws NoSuchAlgorithmException,
-    NoSuchProviderException
+  CSRDetails(
+    final CSRUserName in_user_name,
+    final CSRPassword in_password,
+    final CSRKeyAlgorithm in_algorithm,
+    final File output,
+    final CSROutputLayout layout)
   {
-    final KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA", "BC");
-    kpg.initialize(4096);
-    return kpg.generateKeyPair();
+    this.user_name = NullCheck.notNull(in_user_name, "User name");
+    this.password = NullCheck.notNull(in_password, "Password");
+    this.algorithm = NullCheck.notNull(in_algorithm, "Algorithm");
+    NullCheck.notNull(output, "File");
+    NullCheck.notNull(layout, "Layout");
+
+    final String name = in_user_name.toString();
+    this.directory = layout.directory(output, name);
+    this.private_key = new File(this.directory, name + ".key");
+    this.csr = new File(this.directory, name + ".csr");
+    this.hash_file = new File(this.directory, name + ".sha256");
   }
 
-  PKCS10CertificationRequest generateCSR(
+  byte[] generateCSR(
     final KeyPair keypair)
     throws IOException,
     OperatorCreationException
   {
-    final StringBuilder b = new StringBuilder(128);
-    b.append("CN=");
-    b.append(this.user_name.toString());
-    b.append(", ");
-    b.append("C=XA");
-
-    final AsymmetricKeyParameter private_key_param =
-      PrivateKeyFactory.createKey(keypair.getPrivate().getEncoded());
-    final AlgorithmIdentifier signature_algorithm =
-      new DefaultSignatureAlgorithmIdentifierFinder().find("SHA1WITHRSA");
-    final AlgorithmIdentifier digest_algorithm =
-      new DefaultDigestAlgorithmIdentifierFinder().find("SHA-1");
-    final ContentSigner signer =
-      new BcRSAContentSignerBuilder(signature_algorithm, digest_algorithm)
-        .build(private_key_param);
-
-    final PKCS10CertificationRequestBuilder csr_builder =
-      new JcaPKCS10CertificationRequestBuilder(
-        new X500Name(b.toString()),
-        keypair.getPublic());
-    final ExtensionsGenerator extensions_generator =
-      new ExtensionsGenerator();
-
-    extensions_generator.addExtension(
-      Extension.basicConstraints,
-      true,
-      new BasicConstraints(true));
-    extensions_generator.addExtension(
-      Extension.keyUsage,
-      true,
-      new KeyUsage(KeyUsage.dataEncipherment));
-    csr_builder.addAttribute(
-      PKCSObjectIdentifiers.pkcs_9_at_extensionRequest,
-      extensions_generator.generate());
-    return csr_builder.build(signer);
-  }
-
-  public String getHashValue()
-  {
-    final String hv = this.hash_value;
-    if (hv == null) {
-      throw new IllegalStateException("Hash value not yet calculated");
-    }
-    return hv;
+    return CSRTemplate.standard().build(this.user_name, this.algorithm, keypair);
   }
 
   public File getHashFile()
@@ -155,6 +92,16 @@ final class CSRDetails
     return this.csr;
   }
 
+  public CSRKeyAlgorithm getKeyAlgorithm()
+  {
+    return this.algorithm;
+  }
+
+  /**
+   * @return The directory that holds the output files, as determined by
+   * the output layout
+   */
+
   public File getDirectory()
   {
     return this.directory;
@@ -175,65 +122,93 @@ final class CSRDetails
     return this.user_name;
   }
 
-  void writeCSR(
-    final PKCS10CertificationRequest csr_actual)
+  /**
+   * Encode the given CSR as PEM.
+   *
+   * @param csr_actual The DER encoding of the CSR
+   *
+   * @return The ASCII bytes of the encoded CSR
+   *
+   * @throws IOException On encoding errors
+   */
+
+  byte[] encodeCSR(
+    final byte[] csr_actual)
     throws IOException
   {
-    try (JcaPEMWriter writer = new JcaPEMWriter(new FileWriter(this.csr))) {
-      writer.writeObject(csr_actual);
-      writer.flush();
-    }
+    return encodePEM(new PemObject("CERTIFICATE REQUEST", csr_actual));
   }
 
-  void writeCSRHash()
-    throws IOException
-  {
+  /**
+   * Encode the given hash as it should appear in the hash file.
+   *
+   * @param hash The hash of the encoded CSR
+   *
+   * @return The ASCII bytes of the hash file
+   */
 
-    try (FileInputStream stream = new FileInputStream(this.csr)) {
-      this.digest.reset();
-
-      final byte[] buffer = new byte[8192];
-      while (true) {
-        final int r = stream.read(buffer);
-        if (r == -1) {
-          break;
-        }
-        this.digest.update(buffer, 0, r);
-      }
-
-      final byte[] r = this.digest.digest();
-      final StringBuilder s = new StringBuilder();
-
-      for (int index = 0; index < r.length; ++index) {
-        s.append(String.format("%02x", Byte.valueOf(r[index])));
-      }
-
-      this.hash_value = s.toString();
-      try (PrintWriter out = new PrintWriter(new FileWriter(this.hash_file))) {
-        out.println(this.hash_value);
-        out.flush();
-      }
-    }
+  byte[] encodeCSRHash(
+    final CSRHash hash)
+  {
+    final int digits = hash.size() * 2;
+    final byte[] line = new byte[digits + LINE_SEPARATOR.length];
+    hash.encodeASCII(line, 0);
+    System.arraycopy(
+      LINE_SEPARATOR, 0, line, digits, LINE_SEPARATOR.length);
+    return line;
   }
 
-  void writePrivateKey(
-    final KeyPair keypair)
+  /**
+   * Encrypt the given private key.
+   *
+   * @param keypair    The key pair
+   * @param encryption The private key encryption scheme
+   *
+   * @return The encrypted private key
+   *
+   * @throws OperatorCreationException If the encryptor cannot be created
+   * @throws IOException               If the key cannot be encoded
+   */
+
+  PemObject encryptPrivateKey(
+    final KeyPair keypair,
+    final CSRKeyEncryption encryption)
     throws OperatorCreationException,
     IOException
   {
-    final JceOpenSSLPKCS8EncryptorBuilder builder =
-      new JceOpenSSLPKCS8EncryptorBuilder(PKCS8Generator.PBE_SHA1_3DES);
-    builder.setRandom(new SecureRandom());
-    builder.setPasssword(this.password.getPassword());
-    builder.setIterationCount(100000);
-    final OutputEncryptor oe = builder.build();
-    final JcaPKCS8Generator gen =
-      new JcaPKCS8Generator(keypair.getPrivate(), oe);
-    final PemObject pem = gen.generate();
-
-    try (JcaPEMWriter writer = new JcaPEMWriter(new FileWriter(this.private_key))) {
-      writer.writeObject(pem);
+    return encryption.encrypt(
+      keypair.getPrivate(), this.password.getPassword());
+  }
+
+  /**
+   * Encode an encrypted private key as PEM.
+   *
+   * @param pem The key returned by
+   *            {@link #encryptPrivateKey(KeyPair, CSRKeyEncryption)}
+   *
+   * @return The ASCII bytes of the encoded key
+   *
+   * @throws IOException On encoding errors
+   */
+
+  byte[] encodePrivateKey(
+    final PemObject pem)
+    throws IOException
+  {
+    return encodePEM(pem);
+  }
+
+  private static byte[] encodePEM(
+    final Object value)
+    throws IOException
+  {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+    try (JcaPEMWriter writer =
+           new JcaPEMWriter(
+             new OutputStreamWriter(bytes, StandardCharsets.US_ASCII))) {
+      writer.writeObject(value);
       writer.flush();
     }
+    return bytes.toByteArray();
   }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.bouncycastle.operator.OperatorException;
+import org.bouncycastle.pkcs.PKCSException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.GeneralSecurityException;
+
+/**
+ * A coarse classification of the reasons that a request can fail.
+ */
+
+enum CSRFailureKind
+{
+  /**
+   * The request was invalid.
+   */
+
+  VALIDATION("validation"),
+
+  /**
+   * A cryptographic operation failed.
+   */
+
+  CRYPTO("crypto"),
+
+  /**
+   * An I/O operation failed.
+   */
+
+  IO("io"),
+
+  /**
+   * Any other failure.
+   */
+
+  OTHER("other");
+
+  private final String label;
+
+  CSRFailureKind(
+    final String in_label)
+  {
+    this.label = in_label;
+  }
+
+  /**
+   * Classify the given error.
+   *
+   * @param error The error
+   *
+   * @return The kind of failure
+   */
+
+  static CSRFailureKind classify(
+    final Throwable error)
+  {
+    if (error instanceof ValidationProblem) {
+      return VALIDATION;
+    }
+    if (error instanceof GeneralSecurityException
+      || error instanceof OperatorException
+      || error instanceof PKCSException) {
+      return CRYPTO;
+    }
+    if (error instanceof IOException || error instanceof UncheckedIOException) {
+      return IO;
+    }
+    return OTHER;
+  }
+
+  /**
+   * @return The label used for the failure kind in metrics
+   */
+
+  String getLabel()
+  {
+    return this.label;
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.label;
+  }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A committer for pending files.
+ *
+ * A grouping committer has a single thread that takes every commit that
+ * is waiting, synchronizes all of the files in all of those commits to
+ * disk, renames them into place, and then synchronizes each affected
+ * directory once. While one group is being synchronized, new commits
+ * accumulate into the next group, so under load the cost of each
+ * {@code fsync} is shared by many requests without any artificial delay
+ * for a lone request. The futures of a group are completed on a separate
+ * pool of threads, so that work that depends on them (such as appending to
+ * a journal) never delays the next group. An exception thrown while
+ * committing one request fails only that request; any other failure while
+ * committing a group fails every request in the group that has not yet
+ * been completed, and the committer continues with the next group.
+ *
+ * An inline committer commits on the calling thread, one commit at a
+ * time.
+ *
+ * If synchronization is disabled, files are still renamed atomically into
+ * place, but nothing is forced to disk.
+ *
+ * A commit is not atomic across its files. If renaming one of the files
+ * fails, the files renamed before it are left in place, and the files after
+ * it are discarded. If synchronizing a directory fails, all of the files
+ * are already in place but are not known to be durable. In both cases the
+ * commit is reported as failed, and the final files that are already in
+ * place are logged. Discarding a failed commit never removes them; a
+ * later successful commit of the same request replaces them.
+ */
+
+final class CSRFileCommitter implements AutoCloseable
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRFileCommitter.class);
+  }
+
+  private final boolean sync;
+  private final @Nullable LinkedBlockingQueue<Commit> queue;
+  private final Executor completions;
+  private final Object lock;
+  private volatile boolean closed;
+
+  private CSRFileCommitter(
+    final boolean in_sync,
+    final @Nullable LinkedBlockingQueue<Commit> in_queue,
+    final Executor in_completions)
+  {
+    this.sync = in_sync;
+    this.queue = in_queue;
+    this.completions = NullCheck.notNull(in_completions, "Completions");
+    this.lock = new Object();
+    this.closed = false;
+  }
+
+  /**
+   * @param sync {@code true} if files should be synchronized to disk
+   *
+   * @return A committer that groups commits on a background thread
+   */
+
+  static CSRFileCommitter createGrouping(
+    final boolean sync)
+  {
+    final AtomicInteger ids = new AtomicInteger(0);
+    final ExecutorService completions =
+      Executors.newCachedThreadPool(r -> {
+        final Thread t = new Thread(r);
+        t.setName("com.io7m.mkcsr.commit-complete-" + ids.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      });
+
+    final CSRFileCommitter c =
+      new CSRFileCommitter(sync, new LinkedBlockingQueue<>(), completions);
+    final Thread t = new Thread(() -> {
+      try {
+        c.run();
+      } finally {
+        completions.shutdown();
+      }
+    });
+    t.setName("com.io7m.mkcsr.commit");
+    t.setDaemon(true);
+    t.start();
+    return c;
+  }
+
+  /**
+   * @param sync {@code true} if files should be synchronized to disk
+   *
+   * @return A committer that commits on the calling thread
+   */
+
+  static CSRFileCommitter createInline(
+    final boolean sync)
+  {
+    return new CSRFileCommitter(sync, null, Runnable::run);
+  }
+
+  /**
+   * @return The value of {@code com.io7m.mkcsr.output.sync} (default
+   * {@code true})
+   */
+
+  static boolean syncFromSystemProperties()
+  {
+    return Boolean.parseBoolean(
+      System.getProperty("com.io7m.mkcsr.output.sync", "true"));
+  }
+
+  /**
+   * Commit the given files. On failure, any files that have not been
+   * renamed into place are discarded, and any files that have been renamed
+   * into place are left there.
+   *
+   * @param files The files
+   *
+   * @return A future that completes when the files are committed
+   */
+
+  CompletableFuture<Void> commit(
+    final List<CSRPendingFile> files)
+  {
+    final Commit c = new Commit(NullCheck.notNull(files, "Files"));
+
+    final LinkedBlockingQueue<Commit> q = this.queue;
+    if (q == null) {
+      final List<Commit> group = new ArrayList<>(1);
+      group.add(c);
+      this.commitGroupSafely(group);
+      return c.future;
+    }
+
+    synchronized (this.lock) {
+      if (this.closed) {
+        c.fail(new IOException("Committer is closed"), Runnable::run);
+        return c.future;
+      }
+      q.add(c);
+    }
+    return c.future;
+  }
+
+  private void run()
+  {
+    final LinkedBlockingQueue<Commit> q = NullCheck.notNull(this.queue, "Queue");
+    final List<Commit> group = new ArrayList<>(64);
+
+    while (true) {
+      final Commit first;
+      try {
+        first = q.poll(100L, TimeUnit.MILLISECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+
+      if (first == null) {
+        if (this.closed && q.isEmpty()) {
+          break;
+        }
+        continue;
+      }
+
+      group.clear();
+      group.add(first);
+      q.drainTo(group);
+      this.commitGroupSafely(group);
+    }
+
+    group.clear();
+    q.drainTo(group);
+    for (final Commit c : group) {
+      c.fail(new IOException("Committer is closed"), this.completions);
+    }
+  }
+
+  private void commitGroupSafely(
+    final List<Commit> group)
+  {
+    try {
+      this.commitGroup(group);
+    } catch (final Throwable e) {
+      LOG.error("commit of {} requests failed", Integer.valueOf(group.size()), e);
+      final IOException failure = new IOException("Commit failed", e);
+      for (final Commit c : group) {
+        if (!c.isFinished()) {
+          c.fail(failure, this.completions);
+        }
+      }
+    }
+  }
+
+  private void commitGroup(
+    final List<Commit> group)
+  {
+    if (this.sync) {
+      for (final Commit c : group) {
+        c.sync(this.completions);
+      }
+    }
+
+    final Set<Path> directories = new HashSet<>(4);
+    for (final Commit c : group) {
+      c.rename(directories, this.completions);
+    }
+
+    if (this.sync) {
+      for (final Path directory : directories) {
+        this.syncDirectory(group, directory);
+      }
+    }
+
+    for (final Commit c : group) {
+      c.complete(this.completions);
+    }
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "committed {} requests in {} directories",
+        Integer.valueOf(group.size()),
+        Integer.valueOf(directories.size()));
+    }
+  }
+
+  private void syncDirectory(
+    final List<Commit> group,
+    final Path directory)
+  {
+    try {
+      CSRPendingFile.syncDirectory(directory);
+    } catch (final IOException | RuntimeException e) {
+      for (final Commit c : group) {
+        if (c.contains(directory)) {
+          c.fail(e, this.completions);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    synchronized (this.lock) {
+      this.closed = true;
+    }
+  }
+
+  private static final class Commit
+  {
+    private final List<CSRPendingFile> files;
+    private final CompletableFuture<Void> future;
+    private @Nullable Exception failure;
+    private boolean finished;
+
+    Commit(
+      final List<CSRPendingFile> in_files)
+    {
+      this.files = in_files;
+      this.future = new CompletableFuture<>();
+    }
+
+    void sync(
+      final Executor completions)
+    {
+      try {
+        for (final CSRPendingFile f : this.files) {
+          f.sync();
+        }
+      } catch (final IOException | RuntimeException e) {
+        this.fail(e, completions);
+      }
+    }
+
+    void rename(
+      final Set<Path> directories,
+      final Executor completions)
+    {
+      if (this.failure != null) {
+        return;
+      }
+      try {
+        for (final CSRPendingFile f : this.files) {
+          f.commit();
+          directories.add(f.getTarget().getParent());
+        }
+      } catch (final IOException | RuntimeException e) {
+        this.fail(e, completions);
+      }
+    }
+
+    boolean isFinished()
+    {
+      return this.finished;
+    }
+
+    void complete(
+      final Executor completions)
+    {
+      if (this.failure == null) {
+        this.finished = true;
+        completions.execute(() -> this.future.complete(null));
+      }
+    }
+
+    boolean contains(
+      final Path directory)
+    {
+      if (this.failure != null) {
+        return false;
+      }
+      for (final CSRPendingFile f : this.files) {
+        if (directory.equals(f.getTarget().getParent())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void fail(
+      final Exception e,
+      final Executor completions)
+    {
+      this.failure = e;
+      this.finished = true;
+      try {
+        for (final CSRPendingFile f : this.files) {
+          if (f.isCommitted()) {
+            LOG.warn(
+              "commit failed, leaving committed file in place: {}",
+              f.getTarget());
+          } else {
+            f.discard();
+          }
+        }
+      } finally {
+        completions.execute(() -> this.future.completeExceptionally(e));
+      }
+    }
+  }
+}
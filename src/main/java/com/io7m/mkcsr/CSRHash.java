@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+
+/**
+ * The SHA-256 hash of a written CSR. The hexadecimal form is only produced
+ * on request, either directly into a caller's buffer via
+ * {@link #encodeASCII(byte[], int)} or as a string via {@link #toString()}.
+ */
+
+final class CSRHash
+{
+  private final byte[] bytes;
+
+  private CSRHash(
+    final byte[] in_bytes)
+  {
+    this.bytes = NullCheck.notNull(in_bytes, "Bytes");
+  }
+
+  /**
+   * @param data The data
+   *
+   * @return The SHA-256 hash of {@code data}
+   */
+
+  static CSRHash sha256(
+    final byte[] data)
+  {
+    return new CSRHash(CSRThreadResources.sha256().digest(data));
+  }
+
+  /**
+   * @return A copy of the raw hash bytes
+   */
+
+  byte[] getBytes()
+  {
+    return this.bytes.clone();
+  }
+
+  /**
+   * Encode the hash as lowercase hexadecimal ASCII into {@code out},
+   * starting at {@code offset}.
+   *
+   * @param out    The output buffer
+   * @param offset The offset within the output buffer
+   */
+
+  void encodeASCII(
+    final byte[] out,
+    final int offset)
+  {
+    CSRHex.encodeASCII(this.bytes, out, offset);
+  }
+
+  /**
+   * @return The number of bytes in the hash
+   */
+
+  int size()
+  {
+    return this.bytes.length;
+  }
+
+  @Override
+  public String toString()
+  {
+    return CSRHex.encode(this.bytes);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+/**
+ * Functions to verify existing CSRs against their hash files.
+ */
+
+final class CSRHashVerification
+{
+  private static final int BUFFER_SIZE = 8192;
+
+  private CSRHashVerification()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Hash the given CSR file and compare the result against the hash
+   * stored in the given hash file. The hash file is read into the same
+   * buffer used to hash the CSR, decoded, and compared against the digest
+   * directly; no intermediate strings are constructed.
+   *
+   * @param csr_file  The CSR file
+   * @param hash_file The hash file
+   *
+   * @return {@code true} iff the hash file is well-formed and matches the CSR
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static boolean verify(
+    final Path csr_file,
+    final Path hash_file)
+    throws IOException
+  {
+    final MessageDigest digest = CSRThreadResources.sha256();
+
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream stream = Files.newInputStream(csr_file)) {
+      while (true) {
+        final int r = stream.read(buffer);
+        if (r == -1) {
+          break;
+        }
+        digest.update(buffer, 0, r);
+      }
+    }
+
+    final byte[] expected = new byte[digest.getDigestLength()];
+    try (InputStream stream = Files.newInputStream(hash_file)) {
+      if (!readHash(stream, buffer, expected)) {
+        return false;
+      }
+    }
+    return MessageDigest.isEqual(expected, digest.digest());
+  }
+
+  /**
+   * Read a hex-encoded hash from the given stream. The hash may be
+   * followed by whitespace, but nothing else. The whole file is read into
+   * the given buffer, and files that do not fit are rejected.
+   */
+
+  private static boolean readHash(
+    final InputStream stream,
+    final byte[] buffer,
+    final byte[] out)
+    throws IOException
+  {
+    final int size = readFully(stream, buffer);
+    final int digits = out.length * 2;
+    if (size < digits) {
+      return false;
+    }
+    for (int index = 0; index < out.length; ++index) {
+      final int hi = CSRHex.decodeDigit(buffer[index * 2] & 0xff);
+      final int lo = CSRHex.decodeDigit(buffer[index * 2 + 1] & 0xff);
+      if (hi < 0 || lo < 0) {
+        return false;
+      }
+      out[index] = (byte) ((hi << 4) | lo);
+    }
+    for (int index = digits; index < size; ++index) {
+      if (!Character.isWhitespace(buffer[index] & 0xff)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Fill the buffer from the given stream.
+   *
+   * @return The number of bytes read, or {@code -1} if the stream does not
+   * fit in the buffer
+   */
+
+  private static int readFully(
+    final InputStream stream,
+    final byte[] buffer)
+    throws IOException
+  {
+    int size = 0;
+    while (size < buffer.length) {
+      final int r = stream.read(buffer, size, buffer.length - size);
+      if (r == -1) {
+        return size;
+      }
+      size += r;
+    }
+    return stream.read() == -1 ? size : -1;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.util.Arrays;
+
+/**
+ * Table-driven lowercase hexadecimal encoding and decoding.
+ */
+
+final class CSRHex
+{
+  private static final char[] DIGITS;
+  private static final byte[] VALUES;
+
+  static {
+    DIGITS = "0123456789abcdef".toCharArray();
+    VALUES = new byte[128];
+    Arrays.fill(VALUES, (byte) -1);
+    for (int index = 0; index < 10; ++index) {
+      VALUES['0' + index] = (byte) index;
+    }
+    for (int index = 0; index < 6; ++index) {
+      VALUES['a' + index] = (byte) (10 + index);
+      VALUES['A' + index] = (byte) (10 + index);
+    }
+  }
+
+  private CSRHex()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Encode the given bytes as a lowercase hexadecimal string.
+   *
+   * @param data The bytes
+   *
+   * @return A hex string
+   */
+
+  static String encode(
+    final byte[] data)
+  {
+    final char[] out = new char[data.length * 2];
+    for (int index = 0; index < data.length; ++index) {
+      final int b = data[index] & 0xff;
+      out[index * 2] = DIGITS[b >>> 4];
+      out[index * 2 + 1] = DIGITS[b & 0xf];
+    }
+    return String.valueOf(out);
+  }
+
+  /**
+   * Encode the given bytes as lowercase hexadecimal ASCII into
+   * {@code out}, starting at {@code offset}. Exactly
+   * {@code data.length * 2} bytes are written.
+   *
+   * @param data   The bytes
+   * @param out    The output buffer
+   * @param offset The offset within the output buffer
+   */
+
+  static void encodeASCII(
+    final byte[] data,
+    final byte[] out,
+    final int offset)
+  {
+    for (int index = 0; index < data.length; ++index) {
+      final int b = data[index] & 0xff;
+      out[offset + index * 2] = (byte) DIGITS[b >>> 4];
+      out[offset + index * 2 + 1] = (byte) DIGITS[b & 0xf];
+    }
+  }
+
+  /**
+   * @param c A character
+   *
+   * @return The value of the given hex digit, or {@code -1} if the
+   * character is not a hex digit
+   */
+
+  static int decodeDigit(
+    final int c)
+  {
+    if (c < 0 || c >= VALUES.length) {
+      return -1;
+    }
+    return VALUES[c];
+  }
+}
@@ -0,0 +1,541 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only journal of batch requests, used to resume interrupted
+ * batches without examining the output directory.
+ *
+ * The journal is an ASCII text file with one record per line:
+ *
+ * <ul>
+ * <li>{@code S <algorithm> <name>}: The request was started</li>
+ * <li>{@code C <algorithm> <hash> <name>}: The request's files were
+ * committed, and the CSR has the given hash</li>
+ * <li>{@code F <algorithm> <name>}: The request failed</li>
+ * </ul>
+ *
+ * In names, each UTF-8 byte that is not a printable ASCII character other
+ * than space and {@code %} is written as {@code %} followed by two
+ * hexadecimal digits, so a name never contains the space that separates
+ * the fields.
+ *
+ * Because the files for a request are committed atomically, a request
+ * with no commit record has either produced no files or must be redone
+ * from the start; intermediate stages are therefore not recorded. A
+ * commit record is only appended after the files are in place, so a
+ * crash between the two causes the request to be redone, which is
+ * harmless. Commit records are forced to disk before
+ * {@link #onCompleted(CSRDetails, CSRHash, long)} returns, unless
+ * {@code com.io7m.mkcsr.output.sync} is {@code false}; records appended
+ * concurrently share a single force. Start and failure records are only
+ * flushed to the operating system: a batch never starts a request whose
+ * name has a commit record, so losing them in a crash cannot cause a
+ * resumed batch to skip a request. A torn final line left by a crash is
+ * ignored when the journal is read.
+ *
+ * The names with commit records are held in a {@link CSRNameIndex}
+ * together with the positions of their records, and so take a bounded
+ * amount of memory however large the journal. Each lookup that finds a
+ * name reads its record back from the journal and compares the name, and
+ * in the unlikely event that two names share a fingerprint, the journal
+ * is searched for the name instead.
+ */
+
+final class CSRJournal implements CSRProgressListenerType, AutoCloseable
+{
+  private static final Logger LOG;
+  private static final char[] DIGITS;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRJournal.class);
+    DIGITS = "0123456789ABCDEF".toCharArray();
+  }
+
+  private final Path file;
+  private final CSRNameIndex committed;
+  private final long length;
+  private final FileChannel channel;
+  private final Writer writer;
+  private final boolean sync;
+  private final Object force_lock;
+  private long appended;
+  private long forced;
+
+  private CSRJournal(
+    final Path in_file,
+    final CSRNameIndex in_committed,
+    final long in_length,
+    final FileChannel in_channel,
+    final boolean in_sync)
+  {
+    this.file = NullCheck.notNull(in_file, "File");
+    this.committed = NullCheck.notNull(in_committed, "Committed");
+    this.length = in_length;
+    this.channel = NullCheck.notNull(in_channel, "Channel");
+    this.writer =
+      new BufferedWriter(
+        new OutputStreamWriter(
+          Channels.newOutputStream(in_channel), StandardCharsets.US_ASCII));
+    this.sync = in_sync;
+    this.force_lock = new Object();
+  }
+
+  /**
+   * Open a journal, reading any existing records, and creating the file
+   * if it does not exist.
+   *
+   * @param file    The journal file
+   * @param maximum The maximum number of committed names in the journal
+   * @param sync    {@code true} if commit records should be forced to disk
+   *
+   * @return A journal
+   *
+   * @throws IOException On I/O errors, or if the journal has more than
+   *                     {@code maximum} committed names
+   */
+
+  static CSRJournal open(
+    final Path file,
+    final int maximum,
+    final boolean sync)
+    throws IOException
+  {
+    final CSRNameIndex committed = new CSRNameIndex(maximum);
+    final long length = scan(file, Long.MAX_VALUE, (offset, record) -> {
+      if (record.kind != 'C') {
+        committed.remove(record.name);
+      } else if (!committed.put(record.name, offset)) {
+        throw new IOException(
+          file + ": more than " + maximum + " committed names"
+            + " (see com.io7m.mkcsr.batch.maximumNames)");
+      }
+    });
+
+    LOG.debug(
+      "{}: {} committed requests",
+      file,
+      Integer.valueOf(committed.size()));
+
+    final FileChannel channel =
+      FileChannel.open(
+        file,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+
+    final CSRJournal journal;
+    try {
+      final long size = channel.size();
+      channel.position(size);
+      journal = new CSRJournal(file, committed, length, channel, sync);
+      if (size != length) {
+        journal.writer.write('\n');
+        journal.writer.flush();
+      }
+    } catch (final IOException e) {
+      channel.close();
+      throw e;
+    }
+    return journal;
+  }
+
+  /**
+   * Read the complete records in the first {@code limit} bytes of the
+   * journal.
+   *
+   * @return The number of bytes up to the end of the last complete record
+   */
+
+  private static long scan(
+    final Path file,
+    final long limit,
+    final RecordReceiverType receiver)
+    throws IOException
+  {
+    final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+    long offset = 0L;
+    long start = 0L;
+    int line_number = 0;
+
+    try (InputStream stream =
+           new BufferedInputStream(Files.newInputStream(file))) {
+      while (offset < limit) {
+        final int b = stream.read();
+        if (b == -1) {
+          break;
+        }
+        ++offset;
+        if (b != '\n') {
+          line.write(b);
+          continue;
+        }
+
+        ++line_number;
+        final Record record = Record.parse(line.toString(StandardCharsets.US_ASCII.name()));
+        if (record != null) {
+          receiver.receive(start, record);
+        } else {
+          LOG.warn(
+            "{}:{}: ignoring malformed record",
+            file,
+            Integer.valueOf(line_number));
+        }
+        line.reset();
+        start = offset;
+      }
+    } catch (final NoSuchFileException e) {
+      return 0L;
+    }
+
+    if (line.size() > 0) {
+      LOG.warn(
+        "{}:{}: ignoring incomplete record",
+        file,
+        Integer.valueOf(line_number + 1));
+    }
+    return start;
+  }
+
+  /**
+   * Escape a name for inclusion in a record.
+   *
+   * @param name The name
+   *
+   * @return The escaped name
+   */
+
+  static String escape(
+    final String name)
+  {
+    final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    final StringBuilder b = new StringBuilder(bytes.length + 8);
+    for (final byte x : bytes) {
+      final int c = x & 0xff;
+      if (c > ' ' && c < 0x7f && c != '%') {
+        b.append((char) c);
+      } else {
+        b.append('%');
+        b.append(DIGITS[c >>> 4]);
+        b.append(DIGITS[c & 0xf]);
+      }
+    }
+    return b.toString();
+  }
+
+  /**
+   * Unescape a name read from a record.
+   *
+   * @param text The escaped name
+   *
+   * @return The name, or {@code null} if the text is not a valid escaped
+   * name
+   */
+
+  static @Nullable String unescape(
+    final String text)
+  {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length());
+    int index = 0;
+    while (index < text.length()) {
+      final char c = text.charAt(index);
+      if (c == '%') {
+        if (index + 2 >= text.length()) {
+          return null;
+        }
+        final int high = CSRHex.decodeDigit(text.charAt(index + 1));
+        final int low = CSRHex.decodeDigit(text.charAt(index + 2));
+        if (high < 0 || low < 0) {
+          return null;
+        }
+        bytes.write((high << 4) | low);
+        index += 3;
+      } else if (c > ' ' && c < 0x7f) {
+        bytes.write(c);
+        ++index;
+      } else {
+        return null;
+      }
+    }
+    return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes.toByteArray())).toString();
+  }
+
+  /**
+   * @return The journal file
+   */
+
+  Path getFile()
+  {
+    return this.file;
+  }
+
+  /**
+   * Determine whether the given request was committed by a previous run.
+   * A request committed with a different key algorithm is not considered
+   * to be committed.
+   *
+   * @param details The request
+   *
+   * @return The text of the hash of the committed CSR, or {@code null} if
+   * the request was not committed
+   */
+
+  @Nullable String committedHash(
+    final CSRDetails details)
+  {
+    final Record r = this.committedRecord(details.getUserName().toString());
+    if (r != null && r.algorithm.equals(details.getKeyAlgorithm().name())) {
+      return r.hash;
+    }
+    return null;
+  }
+
+  /**
+   * Determine the key algorithm with which a previous run committed the
+   * given request's user name, whatever the request's own algorithm.
+   *
+   * @param details The request
+   *
+   * @return The name of the key algorithm, or {@code null} if the user
+   * name was not committed
+   */
+
+  @Nullable String committedAlgorithm(
+    final CSRDetails details)
+  {
+    final Record r = this.committedRecord(details.getUserName().toString());
+    if (r != null) {
+      return r.algorithm;
+    }
+    return null;
+  }
+
+  private @Nullable Record committedRecord(
+    final String name)
+  {
+    final long offset = this.committed.get(name);
+    if (offset == CSRNameIndex.NONE) {
+      return null;
+    }
+
+    try {
+      final Record r = this.readRecord(offset);
+      if (r != null && r.name.equals(name)) {
+        return r;
+      }
+
+      LOG.debug("{}: searching for {}", this.file, name);
+      final Record[] found = new Record[1];
+      scan(this.file, this.length, (ignored, record) -> {
+        if (record.name.equals(name)) {
+          found[0] = record.kind == 'C' ? record : null;
+        }
+      });
+      return found[0];
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private @Nullable Record readRecord(
+    final long offset)
+    throws IOException
+  {
+    final ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+    final ByteBuffer buffer = ByteBuffer.allocate(256);
+    long position = offset;
+    while (position < this.length) {
+      buffer.clear();
+      final int count = this.channel.read(buffer, position);
+      if (count <= 0) {
+        break;
+      }
+      for (int index = 0; index < count; ++index) {
+        final byte b = buffer.get(index);
+        if (b == (byte) '\n') {
+          return Record.parse(line.toString(StandardCharsets.US_ASCII.name()));
+        }
+        line.write(b);
+      }
+      position += count;
+    }
+    return null;
+  }
+
+  @Override
+  public void onStageStarted(
+    final CSRDetails details,
+    final CSRStage stage)
+  {
+    if (stage == CSRStage.KEY_GENERATION) {
+      this.append(
+        "S " + details.getKeyAlgorithm().name() + " " + name(details), false);
+    }
+  }
+
+  @Override
+  public void onCompleted(
+    final CSRDetails details,
+    final CSRHash hash,
+    final long elapsed_nanos)
+  {
+    this.append(
+      "C " + details.getKeyAlgorithm().name() + " " + hash + " " + name(details),
+      true);
+  }
+
+  @Override
+  public void onFailed(
+    final CSRDetails details,
+    final Throwable error,
+    final long elapsed_nanos)
+  {
+    this.append(
+      "F " + details.getKeyAlgorithm().name() + " " + name(details), false);
+  }
+
+  private static String name(
+    final CSRDetails details)
+  {
+    return escape(details.getUserName().toString());
+  }
+
+  private void append(
+    final String record,
+    final boolean force)
+  {
+    final long sequence;
+    synchronized (this.writer) {
+      try {
+        this.writer.write(record);
+        this.writer.write('\n');
+        this.writer.flush();
+      } catch (final IOException e) {
+        LOG.error("{}: could not append record: {}", this.file, e.getMessage());
+        return;
+      }
+      ++this.appended;
+      sequence = this.appended;
+    }
+
+    if (force && this.sync) {
+      this.force(sequence);
+    }
+  }
+
+  /**
+   * Force every record up to the given one to disk, unless another thread
+   * has already done so while this thread was waiting.
+   */
+
+  private void force(
+    final long sequence)
+  {
+    synchronized (this.force_lock) {
+      if (this.forced >= sequence) {
+        return;
+      }
+
+      final long target;
+      synchronized (this.writer) {
+        target = this.appended;
+      }
+
+      try {
+        this.channel.force(false);
+        this.forced = target;
+      } catch (final IOException e) {
+        LOG.error("{}: could not synchronize: {}", this.file, e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    synchronized (this.writer) {
+      this.writer.close();
+    }
+  }
+
+  private interface RecordReceiverType
+  {
+    void receive(
+      long offset,
+      Record record)
+      throws IOException;
+  }
+
+  private static final class Record
+  {
+    private final char kind;
+    private final String algorithm;
+    private final @Nullable String hash;
+    private final String name;
+
+    Record(
+      final char in_kind,
+      final String in_algorithm,
+      final @Nullable String in_hash,
+      final String in_name)
+    {
+      this.kind = in_kind;
+      this.algorithm = in_algorithm;
+      this.hash = in_hash;
+      this.name = in_name;
+    }
+
+    static @Nullable Record parse(
+      final String line)
+    {
+      final String[] parts = line.split(" ", -1);
+      final String name;
+      if (parts.length == 4 && "C".equals(parts[0])) {
+        name = unescape(parts[3]);
+        return name == null ? null : new Record('C', parts[1], parts[2], name);
+      }
+      if (parts.length == 3 && ("S".equals(parts[0]) || "F".equals(parts[0]))) {
+        name = unescape(parts[2]);
+        return name == null ? null : new Record(parts[0].charAt(0), parts[1], null, name);
+      }
+      return null;
+    }
+  }
+}
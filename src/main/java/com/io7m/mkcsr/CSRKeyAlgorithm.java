@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.jcajce.spec.EdDSAParameterSpec;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DefaultSignatureAlgorithmIdentifierFinder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.RSAKeyGenParameterSpec;
+import java.util.Locale;
+
+/**
+ * The supported key algorithms, along with the signature algorithm used
+ * to sign CSRs for keys of each type.
+ */
+
+enum CSRKeyAlgorithm
+{
+  RSA_2048(
+    "RSA-2048",
+    "RSA",
+    new RSAKeyGenParameterSpec(2048, RSAKeyGenParameterSpec.F4),
+    "SHA256WITHRSA",
+    false),
+
+  RSA_3072(
+    "RSA-3072",
+    "RSA",
+    new RSAKeyGenParameterSpec(3072, RSAKeyGenParameterSpec.F4),
+    "SHA256WITHRSA",
+    true),
+
+  RSA_4096(
+    "RSA-4096",
+    "RSA",
+    new RSAKeyGenParameterSpec(4096, RSAKeyGenParameterSpec.F4),
+    "SHA256WITHRSA",
+    true),
+
+  EC_P256(
+    "ECDSA P-256",
+    "EC",
+    new ECGenParameterSpec("P-256"),
+    "SHA256WITHECDSA",
+    false),
+
+  EC_P384(
+    "ECDSA P-384",
+    "EC",
+    new ECGenParameterSpec("P-384"),
+    "SHA384WITHECDSA",
+    false),
+
+  ED25519(
+    "Ed25519",
+    "Ed25519",
+    new EdDSAParameterSpec(EdDSAParameterSpec.Ed25519),
+    "Ed25519",
+    false);
+
+  private final String description;
+  private final String key_algorithm;
+  private final AlgorithmParameterSpec key_parameters;
+  private final String signature_algorithm;
+  private final boolean slow;
+
+  CSRKeyAlgorithm(
+    final String in_description,
+    final String in_key_algorithm,
+    final AlgorithmParameterSpec in_key_parameters,
+    final String in_signature_algorithm,
+    final boolean in_slow)
+  {
+    this.description = in_description;
+    this.key_algorithm = in_key_algorithm;
+    this.key_parameters = in_key_parameters;
+    this.signature_algorithm = in_signature_algorithm;
+    this.slow = in_slow;
+  }
+
+  /**
+   * Parse an algorithm name such as {@code RSA_4096} or {@code ed25519}.
+   *
+   * @param text The algorithm name
+   *
+   * @return The algorithm
+   *
+   * @throws ValidationProblem If the name does not refer to a known algorithm
+   */
+
+  static CSRKeyAlgorithm parse(
+    final String text)
+    throws ValidationProblem
+  {
+    final String upper = text.trim().toUpperCase(Locale.ROOT);
+    for (final CSRKeyAlgorithm a : values()) {
+      if (a.name().equals(upper)) {
+        return a;
+      }
+    }
+
+    final StringBuilder b = new StringBuilder(128);
+    b.append("Unrecognized key algorithm '");
+    b.append(text);
+    b.append("' (must be one of:");
+    for (final CSRKeyAlgorithm a : values()) {
+      b.append(' ');
+      b.append(a.name());
+    }
+    b.append(')');
+    throw new ValidationProblem(b.toString());
+  }
+
+  /**
+   * @return {@code true} if key generation is expected to take a long time
+   */
+
+  boolean isSlow()
+  {
+    return this.slow;
+  }
+
+  /**
+   * @return The name of the algorithm used to sign CSRs
+   */
+
+  String getSignatureAlgorithmName()
+  {
+    return this.signature_algorithm;
+  }
+
+  /**
+   * @return The identifier of the algorithm used to sign CSRs
+   */
+
+  AlgorithmIdentifier getSignatureAlgorithm()
+  {
+    return new DefaultSignatureAlgorithmIdentifierFinder()
+      .find(this.signature_algorithm);
+  }
+
+  /**
+   * Generate a new key pair using the current thread's generator.
+   *
+   * @return A new key pair
+   *
+   * @throws NoSuchAlgorithmException If the algorithm is unavailable
+   * @throws NoSuchProviderException  If the BouncyCastle provider is unavailable
+   */
+
+  KeyPair generateKeyPair()
+    throws NoSuchAlgorithmException, NoSuchProviderException
+  {
+    return CSRThreadResources.keyPairGenerator(this).generateKeyPair();
+  }
+
+  /**
+   * Create a new key pair generator. Key pair generators are not
+   * thread-safe; use {@link #generateKeyPair()} unless a private instance
+   * is required.
+   *
+   * @param random The source of randomness for the generator
+   *
+   * @return A new initialized key pair generator
+   *
+   * @throws NoSuchAlgorithmException If the algorithm is unavailable
+   * @throws NoSuchProviderException  If the BouncyCastle provider is unavailable
+   */
+
+  KeyPairGenerator createKeyPairGenerator(
+    final SecureRandom random)
+    throws NoSuchAlgorithmException, NoSuchProviderException
+  {
+    final KeyPairGenerator kpg =
+      KeyPairGenerator.getInstance(
+        this.key_algorithm, CSRProviders.bouncyCastle());
+
+    try {
+      kpg.initialize(this.key_parameters, random);
+    } catch (final InvalidAlgorithmParameterException e) {
+      throw new UnreachableCodeException(e);
+    }
+    return kpg;
+  }
+
+  /**
+   * Create a signer for CSRs using the given private key and the current
+   * thread's signer builder.
+   *
+   * @param private_key The private key
+   *
+   * @return A content signer
+   *
+   * @throws OperatorCreationException If the signer cannot be created
+   */
+
+  ContentSigner createSigner(
+    final PrivateKey private_key)
+    throws OperatorCreationException
+  {
+    return CSRThreadResources.signerBuilder(this).build(private_key);
+  }
+
+  /**
+   * Create a new signer builder.
+   *
+   * @param random The source of randomness for signatures
+   *
+   * @return A new signer builder
+   */
+
+  JcaContentSignerBuilder createSignerBuilder(
+    final SecureRandom random)
+  {
+    return new JcaContentSignerBuilder(this.signature_algorithm)
+      .setProvider(CSRProviders.bouncyCastle())
+      .setSecureRandom(random);
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.description;
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.openssl.PKCS8Generator;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.OutputEncryptor;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.security.PrivateKey;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A private key encryption scheme along with its cost parameter.
+ *
+ * The cost can either be given explicitly or chosen by calibration: the
+ * key derivation function is timed on the current host at increasing
+ * costs, and the cost is then scaled so that a single encryption takes
+ * approximately a target amount of time. In either case, the cost is
+ * never lower than the scheme's minimum cost, so a low target or a slow
+ * host cannot weaken the encryption below the scheme's security floor.
+ */
+
+final class CSRKeyEncryption
+{
+  private static final Logger LOG;
+
+  /**
+   * Calibration keeps doubling the cost until a single derivation takes
+   * at least this long, so that timer resolution and noise do not
+   * dominate the estimate.
+   */
+
+  private static final long CALIBRATION_MINIMUM_NANOS;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRKeyEncryption.class);
+    CALIBRATION_MINIMUM_NANOS = TimeUnit.MILLISECONDS.toNanos(25L);
+  }
+
+  private final CSRKeyEncryptionScheme scheme;
+  private final int cost;
+
+  CSRKeyEncryption(
+    final CSRKeyEncryptionScheme in_scheme,
+    final int in_cost)
+  {
+    this.scheme = NullCheck.notNull(in_scheme, "Scheme");
+    if (in_cost < 1) {
+      throw new IllegalArgumentException(
+        "Cost must be positive (received " + in_cost + ")");
+    }
+    this.cost = in_scheme.roundCost((long) in_cost);
+  }
+
+  /**
+   * @return The default encryption: PBES2 with AES-256 and
+   * PBKDF2-HMAC-SHA256 at the scheme's default iteration count
+   */
+
+  static CSRKeyEncryption defaults()
+  {
+    final CSRKeyEncryptionScheme s =
+      CSRKeyEncryptionScheme.PBES2_AES256_SHA256;
+    return new CSRKeyEncryption(s, s.getDefaultCost());
+  }
+
+  /**
+   * Configure encryption from system properties.
+   *
+   * <ul>
+   * <li>{@code com.io7m.mkcsr.keyEncryption.scheme}: The scheme name
+   * (default {@code PBES2_AES256_SHA256})</li>
+   * <li>{@code com.io7m.mkcsr.keyEncryption.cost}: An explicit cost</li>
+   * <li>{@code com.io7m.mkcsr.keyEncryption.targetMillis}: If no explicit
+   * cost is given, calibrate the cost so that encryption takes this many
+   * milliseconds on this host</li>
+   * </ul>
+   *
+   * @return The configured encryption
+   */
+
+  static CSRKeyEncryption fromSystemProperties()
+  {
+    final CSRKeyEncryptionScheme s;
+    try {
+      s = CSRKeyEncryptionScheme.parse(
+        System.getProperty(
+          "com.io7m.mkcsr.keyEncryption.scheme",
+          CSRKeyEncryptionScheme.PBES2_AES256_SHA256.name()));
+    } catch (final ValidationProblem e) {
+      LOG.error("using default key encryption: {}", e.getMessage());
+      return defaults();
+    }
+
+    final Integer cost =
+      Integer.getInteger("com.io7m.mkcsr.keyEncryption.cost");
+    if (cost != null) {
+      return new CSRKeyEncryption(s, cost.intValue());
+    }
+
+    final long target =
+      Long.getLong("com.io7m.mkcsr.keyEncryption.targetMillis", 0L).longValue();
+    if (target > 0L) {
+      try {
+        return calibrate(s, target);
+      } catch (final OperatorCreationException e) {
+        LOG.error("key encryption calibration failed: {}", e.getMessage());
+      }
+    }
+    return new CSRKeyEncryption(s, s.getDefaultCost());
+  }
+
+  /**
+   * Time the key derivation function of the given scheme on this host and
+   * choose a cost such that a single derivation takes approximately
+   * {@code target_millis} milliseconds. The cost is never lower than the
+   * scheme's minimum cost, however low the target.
+   *
+   * @param scheme        The scheme
+   * @param target_millis The target time in milliseconds
+   *
+   * @return A calibrated encryption
+   *
+   * @throws OperatorCreationException If the encryptor cannot be created
+   */
+
+  static CSRKeyEncryption calibrate(
+    final CSRKeyEncryptionScheme scheme,
+    final long target_millis)
+    throws OperatorCreationException
+  {
+    final char[] password = "calibration".toCharArray();
+    final int minimum = scheme.getMinimumCost();
+
+    /*
+     * The first derivation includes class loading and JIT warmup, and
+     * is discarded.
+     */
+
+    scheme.createEncryptor(password, minimum, CSRThreadResources.random());
+
+    long measured_cost = (long) minimum;
+    long elapsed;
+    while (true) {
+      final long time_then = System.nanoTime();
+      scheme.createEncryptor(
+        password, (int) measured_cost, CSRThreadResources.random());
+      elapsed = Math.max(1L, System.nanoTime() - time_then);
+      if (elapsed >= CALIBRATION_MINIMUM_NANOS
+        || measured_cost >= (long) (Integer.MAX_VALUE / 2)) {
+        break;
+      }
+      measured_cost = measured_cost * 2L;
+    }
+
+    final double target_nanos =
+      (double) TimeUnit.MILLISECONDS.toNanos(target_millis);
+    final long estimate =
+      (long) ((double) measured_cost * (target_nanos / (double) elapsed));
+    final CSRKeyEncryption result =
+      new CSRKeyEncryption(scheme, scheme.roundCost(estimate));
+
+    LOG.info(
+      "calibrated {}: cost {} took {}ms, selected cost {} for {}ms",
+      scheme,
+      Long.valueOf(measured_cost),
+      Long.valueOf(TimeUnit.NANOSECONDS.toMillis(elapsed)),
+      Integer.valueOf(result.cost),
+      Long.valueOf(target_millis));
+    return result;
+  }
+
+  /**
+   * @return The encryption scheme
+   */
+
+  CSRKeyEncryptionScheme getScheme()
+  {
+    return this.scheme;
+  }
+
+  /**
+   * @return The cost parameter
+   */
+
+  int getCost()
+  {
+    return this.cost;
+  }
+
+  /**
+   * Encrypt a private key in PKCS#8 form.
+   *
+   * @param key      The private key
+   * @param password The password
+   *
+   * @return An encrypted PEM object
+   *
+   * @throws OperatorCreationException If the encryptor cannot be created
+   * @throws IOException               If the key cannot be encoded
+   */
+
+  PemObject encrypt(
+    final PrivateKey key,
+    final char[] password)
+    throws OperatorCreationException,
+    IOException
+  {
+    final OutputEncryptor oe =
+      this.scheme.createEncryptor(
+        password, this.cost, CSRThreadResources.random());
+
+    /*
+     * BouncyCastle encodes Ed25519 private keys as version 2 structures
+     * that include the public key, and OpenSSL cannot read those when
+     * encrypted. Re-encode every key as a plain version 1 structure.
+     */
+
+    final PrivateKeyInfo info = PrivateKeyInfo.getInstance(key.getEncoded());
+    final PrivateKeyInfo info_v1 =
+      new PrivateKeyInfo(
+        info.getPrivateKeyAlgorithm(),
+        info.parsePrivateKey(),
+        info.getAttributes());
+    final PKCS8Generator gen = new PKCS8Generator(info_v1, oe);
+    return gen.generate();
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.scheme + " (cost " + this.cost + ")";
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.crypto.util.PBKDF2Config;
+import org.bouncycastle.crypto.util.PBKDFConfig;
+import org.bouncycastle.crypto.util.ScryptConfig;
+import org.bouncycastle.openssl.PKCS8Generator;
+import org.bouncycastle.openssl.jcajce.JceOpenSSLPKCS8EncryptorBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.OutputEncryptor;
+import org.bouncycastle.pkcs.jcajce.JcePKCSPBEOutputEncryptorBuilder;
+
+import java.security.SecureRandom;
+import java.util.Locale;
+
+/**
+ * The supported schemes for encrypting private keys in PKCS#8 form.
+ *
+ * Each scheme has a single cost parameter. For the PBKDF-based schemes,
+ * the cost is the iteration count. For scrypt, the cost is the total work
+ * {@code N * p}, which must be a power of two. The memory used by scrypt
+ * is {@code 128 * r * N} bytes, so {@code N} is capped by a memory budget
+ * (see {@link #scryptMaximumN()}), and costs beyond that budget are met by
+ * raising the parallelization parameter {@code p} instead. Because the
+ * provider computes the {@code p} lanes one after another, this raises the
+ * time taken without raising the memory used.
+ *
+ * Each scheme also has a minimum cost that acts as a security floor: no
+ * explicit or calibrated cost is ever allowed to fall below it. The floor
+ * for the PBKDF-based schemes is 100000 iterations, which is the count that
+ * older versions of the package always used. The floor for scrypt is
+ * {@code N = 16384}, the customary minimum for interactive logins.
+ */
+
+enum CSRKeyEncryptionScheme
+{
+  /**
+   * PKCS#12 PBE with SHA-1 and 3DES. This is what older versions of
+   * the package produced, and is retained for compatibility.
+   */
+
+  PBE_SHA1_3DES("PBE-SHA1-3DES", 100000, 100000) {
+    @Override
+    OutputEncryptor createEncryptor(
+      final char[] password,
+      final int cost,
+      final SecureRandom random)
+      throws OperatorCreationException
+    {
+      final JceOpenSSLPKCS8EncryptorBuilder builder =
+        new JceOpenSSLPKCS8EncryptorBuilder(
+          PKCS8Generator.PBE_SHA1_3DES);
+      builder.setRandom(random);
+      builder.setPassword(password);
+      builder.setIterationCount(cost);
+      return builder.build();
+    }
+  },
+
+  /**
+   * PBES2 with PBKDF2-HMAC-SHA256 and AES-256-CBC.
+   */
+
+  PBES2_AES256_SHA256("PBES2 AES-256 PBKDF2-HMAC-SHA256", 100000, 100000) {
+    @Override
+    OutputEncryptor createEncryptor(
+      final char[] password,
+      final int cost,
+      final SecureRandom random)
+      throws OperatorCreationException
+    {
+      final PBKDFConfig config =
+        new PBKDF2Config.Builder()
+          .withIterationCount(cost)
+          .withPRF(PBKDF2Config.PRF_SHA256)
+          .build();
+      return createPBES2(config, password, random);
+    }
+  },
+
+  /**
+   * PBES2 with scrypt ({@code r = 8}) and AES-256-CBC.
+   */
+
+  SCRYPT_AES256("PBES2 AES-256 scrypt", 16384, 16384) {
+    @Override
+    OutputEncryptor createEncryptor(
+      final char[] password,
+      final int cost,
+      final SecureRandom random)
+      throws OperatorCreationException
+    {
+      if (Integer.bitCount(cost) != 1) {
+        throw new IllegalArgumentException(
+          "Scrypt cost must be a power of two (received " + cost + ")");
+      }
+      final PBKDFConfig config =
+        new ScryptConfig.Builder(scryptN(cost), SCRYPT_R, scryptP(cost))
+          .withSaltLength(16)
+          .build();
+      return createPBES2(config, password, random);
+    }
+
+    @Override
+    int roundCost(
+      final long cost)
+    {
+      final long clamped =
+        Math.max((long) this.getMinimumCost(), Math.min(cost, 1L << 30));
+      return (int) Long.highestOneBit(clamped);
+    }
+  };
+
+  private static final ASN1ObjectIdentifier PBES2_CIPHER;
+  private static final int SCRYPT_R;
+  private static final int SCRYPT_MAXIMUM_N;
+
+  static {
+    PBES2_CIPHER = NISTObjectIdentifiers.id_aes256_CBC;
+    SCRYPT_R = 8;
+
+    /*
+     * Allow a single derivation at most a quarter of the maximum heap, and
+     * never more than N = 2^20 (1 GiB at r = 8), but never less than the
+     * scrypt floor.
+     */
+
+    final long budget = Runtime.getRuntime().maxMemory() / 4L;
+    final long fitting = Long.highestOneBit(
+      Math.max(1L, budget / (128L * (long) SCRYPT_R)));
+    SCRYPT_MAXIMUM_N = (int) Math.max(
+      16384L, Math.min(fitting, 1L << 20));
+  }
+
+  private final String description;
+  private final int default_cost;
+  private final int minimum_cost;
+
+  CSRKeyEncryptionScheme(
+    final String in_description,
+    final int in_default_cost,
+    final int in_minimum_cost)
+  {
+    this.description = in_description;
+    this.default_cost = in_default_cost;
+    this.minimum_cost = in_minimum_cost;
+  }
+
+  private static OutputEncryptor createPBES2(
+    final PBKDFConfig config,
+    final char[] password,
+    final SecureRandom random)
+    throws OperatorCreationException
+  {
+    return new JcePKCSPBEOutputEncryptorBuilder(config, PBES2_CIPHER)
+      .setProvider(CSRProviders.bouncyCastle())
+      .setRandom(random)
+      .build(password);
+  }
+
+  /**
+   * Parse a scheme name such as {@code PBES2_AES256_SHA256} or
+   * {@code scrypt_aes256}.
+   *
+   * @param text The scheme name
+   *
+   * @return The scheme
+   *
+   * @throws ValidationProblem If the name does not refer to a known scheme
+   */
+
+  static CSRKeyEncryptionScheme parse(
+    final String text)
+    throws ValidationProblem
+  {
+    final String upper = text.trim().toUpperCase(Locale.ROOT);
+    for (final CSRKeyEncryptionScheme s : values()) {
+      if (s.name().equals(upper)) {
+        return s;
+      }
+    }
+
+    final StringBuilder b = new StringBuilder(128);
+    b.append("Unrecognized key encryption scheme '");
+    b.append(text);
+    b.append("' (must be one of:");
+    for (final CSRKeyEncryptionScheme s : values()) {
+      b.append(' ');
+      b.append(s.name());
+    }
+    b.append(')');
+    throw new ValidationProblem(b.toString());
+  }
+
+  /**
+   * @return The largest scrypt {@code N} that will be used, derived from
+   * the maximum heap size
+   */
+
+  static int scryptMaximumN()
+  {
+    return SCRYPT_MAXIMUM_N;
+  }
+
+  /**
+   * @param cost The scrypt cost {@code N * p}, a power of two
+   *
+   * @return The scrypt {@code N} used for the given cost
+   */
+
+  static int scryptN(
+    final int cost)
+  {
+    return Math.min(cost, SCRYPT_MAXIMUM_N);
+  }
+
+  /**
+   * @param cost The scrypt cost {@code N * p}, a power of two
+   *
+   * @return The scrypt {@code p} used for the given cost
+   */
+
+  static int scryptP(
+    final int cost)
+  {
+    return Math.max(1, cost / SCRYPT_MAXIMUM_N);
+  }
+
+  /**
+   * @return The cost used when no other cost is configured
+   */
+
+  int getDefaultCost()
+  {
+    return this.default_cost;
+  }
+
+  /**
+   * @return The lowest cost that this scheme will accept; explicit and
+   * calibrated costs below this are raised to it
+   */
+
+  int getMinimumCost()
+  {
+    return this.minimum_cost;
+  }
+
+  /**
+   * Round the given cost to the nearest acceptable cost for this scheme
+   * that is not greater than the given cost, and not less than the
+   * minimum cost.
+   *
+   * @param cost The cost
+   *
+   * @return An acceptable cost
+   */
+
+  int roundCost(
+    final long cost)
+  {
+    return (int) Math.max(
+      (long) this.minimum_cost,
+      Math.min(cost, (long) Integer.MAX_VALUE));
+  }
+
+  /**
+   * Create an encryptor. The password-based key derivation is performed
+   * here, so the time taken by this method is dominated by the cost.
+   *
+   * @param password The password
+   * @param cost     The cost parameter
+   * @param random   The source of randomness for salts and IVs
+   *
+   * @return A new encryptor
+   *
+   * @throws OperatorCreationException If the encryptor cannot be created
+   */
+
+  abstract OutputEncryptor createEncryptor(
+    char[] password,
+    int cost,
+    SecureRandom random)
+    throws OperatorCreationException;
+
+  @Override
+  public String toString()
+  {
+    return this.description;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.function.Consumer;
+
+/**
+ * A key pair source that generates a new key pair on every request.
+ */
+
+final class CSRKeyPairSourceDirect implements CSRKeyPairSourceType
+{
+  CSRKeyPairSourceDirect()
+  {
+
+  }
+
+  @Override
+  public KeyPair keyPair(
+    final CSRKeyAlgorithm algorithm,
+    final Consumer<String> progress)
+    throws NoSuchAlgorithmException, NoSuchProviderException
+  {
+    if (algorithm.isSlow()) {
+      progress.accept(
+        "Generating " + algorithm
+          + " private key (can take ~30 seconds on a reasonably fast machine)...");
+    } else {
+      progress.accept("Generating " + algorithm + " private key...");
+    }
+    return algorithm.generateKeyPair();
+  }
+}
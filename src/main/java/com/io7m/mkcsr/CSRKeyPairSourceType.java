@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.function.Consumer;
+
+/**
+ * A source of fresh key pairs.
+ */
+
+interface CSRKeyPairSourceType
+{
+  /**
+   * Obtain a fresh key pair. The key pair is never returned to any other
+   * caller.
+   *
+   * @param algorithm The key algorithm
+   * @param progress  A receiver of progress messages
+   *
+   * @return A fresh key pair
+   *
+   * @throws NoSuchAlgorithmException If the key algorithm is unavailable
+   * @throws NoSuchProviderException  If the security provider is unavailable
+   */
+
+  KeyPair keyPair(
+    CSRKeyAlgorithm algorithm,
+    Consumer<String> progress)
+    throws NoSuchAlgorithmException, NoSuchProviderException;
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.junreachable.UnreachableCodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A pool of pre-generated key pairs of a single algorithm. Requests for
+ * keys of any other algorithm are served by direct generation.
+ *
+ * The pool is refilled by low-priority background threads. When the number
+ * of resident keys falls below the low watermark, the pool is refilled up
+ * to the high watermark. The pool never holds more than its capacity.
+ *
+ * Private keys are held in encoded form so that the pool can zero its
+ * encoded copy when a key is handed out or discarded. This does not clear
+ * the key material itself: the key objects produced by the generator, and
+ * the key objects decoded when a key is handed out, cannot be zeroed and
+ * are left to the garbage collector.
+ */
+
+final class CSRKeyPool implements CSRKeyPairSourceType, AutoCloseable
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRKeyPool.class);
+  }
+
+  private final CSRKeyAlgorithm algorithm;
+  private final int low_watermark;
+  private final int high_watermark;
+  private final ArrayBlockingQueue<PooledKeyPair> keys;
+  private final AtomicInteger pending;
+  private final AtomicBoolean closed;
+  private final ExecutorService executor;
+  private final CSRKeyPairSourceType fallback;
+
+  private CSRKeyPool(
+    final CSRKeyAlgorithm in_algorithm,
+    final int in_low_watermark,
+    final int in_high_watermark,
+    final int in_capacity,
+    final int in_threads)
+  {
+    if (in_low_watermark < 0) {
+      throw new IllegalArgumentException(
+        "Low watermark must be non-negative (received " + in_low_watermark + ")");
+    }
+    if (in_high_watermark < in_low_watermark) {
+      throw new IllegalArgumentException(
+        "High watermark " + in_high_watermark
+          + " must be >= low watermark " + in_low_watermark);
+    }
+    if (in_capacity < in_high_watermark || in_capacity < 1) {
+      throw new IllegalArgumentException(
+        "Capacity " + in_capacity
+          + " must be positive and >= high watermark " + in_high_watermark);
+    }
+    if (in_threads < 1) {
+      throw new IllegalArgumentException(
+        "Thread count must be positive (received " + in_threads + ")");
+    }
+
+    this.algorithm = NullCheck.notNull(in_algorithm, "Algorithm");
+    this.low_watermark = in_low_watermark;
+    this.high_watermark = in_high_watermark;
+    this.keys = new ArrayBlockingQueue<>(in_capacity);
+    this.pending = new AtomicInteger();
+    this.closed = new AtomicBoolean();
+    this.fallback = new CSRKeyPairSourceDirect();
+    this.executor = Executors.newFixedThreadPool(in_threads, r -> {
+      final Thread t = new Thread(r);
+      t.setName("com.io7m.mkcsr.key_pool-" + t.getId());
+      t.setPriority(Thread.MIN_PRIORITY);
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Create a new key pool and start filling it.
+   *
+   * @param algorithm      The algorithm of the pooled keys
+   * @param low_watermark  The level below which the pool is refilled
+   * @param high_watermark The level to which the pool is refilled
+   * @param capacity       The maximum number of resident keys
+   * @param threads        The number of background generator threads
+   *
+   * @return A new key pool
+   */
+
+  static CSRKeyPool create(
+    final CSRKeyAlgorithm algorithm,
+    final int low_watermark,
+    final int high_watermark,
+    final int capacity,
+    final int threads)
+  {
+    final CSRKeyPool pool =
+      new CSRKeyPool(algorithm, low_watermark, high_watermark, capacity, threads);
+    pool.refill();
+    return pool;
+  }
+
+  /**
+   * Configure a key source from system properties. If
+   * {@code com.io7m.mkcsr.keyPool.high} is not set to a positive value, the
+   * returned source generates keys directly. Otherwise, a pool is created
+   * using {@code com.io7m.mkcsr.keyPool.algorithm},
+   * {@code com.io7m.mkcsr.keyPool.low},
+   * {@code com.io7m.mkcsr.keyPool.capacity}, and
+   * {@code com.io7m.mkcsr.keyPool.threads}.
+   *
+   * @return A key pair source
+   */
+
+  static CSRKeyPairSourceType fromSystemProperties()
+  {
+    final int high =
+      Integer.getInteger("com.io7m.mkcsr.keyPool.high", 0).intValue();
+    if (high <= 0) {
+      return new CSRKeyPairSourceDirect();
+    }
+
+    final CSRKeyAlgorithm algorithm;
+    try {
+      algorithm = CSRKeyAlgorithm.parse(
+        System.getProperty(
+          "com.io7m.mkcsr.keyPool.algorithm",
+          CSRKeyAlgorithm.RSA_4096.name()));
+    } catch (final ValidationProblem e) {
+      LOG.error("key pool disabled: {}", e.getMessage());
+      return new CSRKeyPairSourceDirect();
+    }
+
+    final int low =
+      Integer.getInteger(
+        "com.io7m.mkcsr.keyPool.low",
+        Math.max(1, high / 2)).intValue();
+    final int capacity =
+      Integer.getInteger("com.io7m.mkcsr.keyPool.capacity", high).intValue();
+    final int threads =
+      Integer.getInteger("com.io7m.mkcsr.keyPool.threads", 1).intValue();
+
+    LOG.debug(
+      "key pool: {} low {} high {} capacity {} threads {}",
+      algorithm,
+      Integer.valueOf(low),
+      Integer.valueOf(high),
+      Integer.valueOf(capacity),
+      Integer.valueOf(threads));
+    return create(algorithm, low, high, capacity, threads);
+  }
+
+  /**
+   * @return The number of keys currently resident in the pool
+   */
+
+  int size()
+  {
+    return this.keys.size();
+  }
+
+  @Override
+  public KeyPair keyPair(
+    final CSRKeyAlgorithm in_algorithm,
+    final Consumer<String> progress)
+    throws NoSuchAlgorithmException, NoSuchProviderException
+  {
+    if (this.closed.get()) {
+      throw new IllegalStateException("Key pool is closed");
+    }
+    if (in_algorithm != this.algorithm) {
+      return this.fallback.keyPair(in_algorithm, progress);
+    }
+
+    final PooledKeyPair k = this.keys.poll();
+    if (this.keys.size() < this.low_watermark) {
+      this.refill();
+    }
+
+    if (k != null) {
+      progress.accept("Using pre-generated private key...");
+      return k.take();
+    }
+
+    LOG.debug("key pool is empty, falling back to direct generation");
+    return this.fallback.keyPair(in_algorithm, progress);
+  }
+
+  private void refill()
+  {
+    while (!this.closed.get()) {
+      final int p = this.pending.get();
+      if (this.keys.size() + p >= this.high_watermark) {
+        return;
+      }
+      if (this.pending.compareAndSet(p, p + 1)) {
+        try {
+          this.executor.execute(this::generateOne);
+        } catch (final RejectedExecutionException e) {
+          this.pending.decrementAndGet();
+          LOG.debug("key pool refill rejected: {}", e.getMessage());
+          return;
+        }
+      }
+    }
+  }
+
+  private void generateOne()
+  {
+    try {
+      if (this.closed.get()) {
+        return;
+      }
+
+      final PooledKeyPair k = new PooledKeyPair(this.algorithm.generateKeyPair());
+      if (!this.keys.offer(k)) {
+        LOG.debug("key pool is at capacity, discarding key");
+        k.destroy();
+      }
+      if (this.closed.get()) {
+        this.drain();
+      }
+    } catch (final Exception e) {
+      LOG.error("key generation failed: {}", e.getMessage());
+    } finally {
+      this.pending.decrementAndGet();
+    }
+  }
+
+  private void drain()
+  {
+    while (true) {
+      final PooledKeyPair k = this.keys.poll();
+      if (k == null) {
+        return;
+      }
+      k.destroy();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      LOG.debug("closing key pool");
+      this.executor.shutdownNow();
+      try {
+        this.executor.awaitTermination(1L, TimeUnit.SECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.drain();
+    }
+  }
+
+  /**
+   * A pooled key pair. The private key is held only as a PKCS#8 encoding
+   * that is zeroed when the key is taken or destroyed; any other copies of
+   * the key material are out of reach of the pool.
+   */
+
+  static final class PooledKeyPair
+  {
+    private final PublicKey public_key;
+    private final String algorithm;
+    private @Nullable byte[] private_encoded;
+
+    PooledKeyPair(
+      final KeyPair in_pair)
+    {
+      NullCheck.notNull(in_pair, "Key pair");
+      final PrivateKey private_key = in_pair.getPrivate();
+      this.public_key = in_pair.getPublic();
+      this.algorithm = private_key.getAlgorithm();
+      this.private_encoded = private_key.getEncoded();
+    }
+
+    synchronized KeyPair take()
+      throws NoSuchAlgorithmException, NoSuchProviderException
+    {
+      final byte[] encoded = this.private_encoded;
+      if (encoded == null) {
+        throw new IllegalStateException("Key has already been taken");
+      }
+
+      try {
+        final KeyFactory kf = KeyFactory.getInstance(
+          this.algorithm, CSRProviders.bouncyCastle());
+        final PrivateKey private_key =
+          kf.generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        return new KeyPair(this.public_key, private_key);
+      } catch (final InvalidKeySpecException e) {
+        throw new UnreachableCodeException(e);
+      } finally {
+        this.destroy();
+      }
+    }
+
+    synchronized void destroy()
+    {
+      final byte[] encoded = this.private_encoded;
+      if (encoded != null) {
+        Arrays.fill(encoded, (byte) 0);
+        this.private_encoded = null;
+      }
+    }
+
+    synchronized boolean isDestroyed()
+    {
+      return this.private_encoded == null;
+    }
+  }
+}
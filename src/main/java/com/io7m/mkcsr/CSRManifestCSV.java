@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parser for single lines of comma-separated values.
+ */
+
+final class CSRManifestCSV
+{
+  private CSRManifestCSV()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Split a line into fields. Fields may be quoted with {@code "}, in
+   * which case they may contain commas, and {@code ""} denotes a literal
+   * quote. Unquoted fields are trimmed.
+   *
+   * @param line The line
+   *
+   * @return The fields
+   *
+   * @throws ValidationProblem If the line contains an unterminated quote
+   */
+
+  static List<String> split(
+    final String line)
+    throws ValidationProblem
+  {
+    final List<String> fields = new ArrayList<>(4);
+    final StringBuilder field = new StringBuilder(32);
+    final int length = line.length();
+
+    int index = 0;
+    while (true) {
+      field.setLength(0);
+      while (index < length && line.charAt(index) == ' ') {
+        ++index;
+      }
+
+      if (index < length && line.charAt(index) == '"') {
+        index = quoted(line, index + 1, field);
+        while (index < length && line.charAt(index) == ' ') {
+          ++index;
+        }
+        if (index < length && line.charAt(index) != ',') {
+          throw new ValidationProblem(
+            "Unexpected text after quoted field at column " + (index + 1));
+        }
+        fields.add(field.toString());
+      } else {
+        final int comma = line.indexOf(',', index);
+        final int end = comma < 0 ? length : comma;
+        fields.add(line.substring(index, end).trim());
+        index = end;
+      }
+
+      if (index >= length) {
+        return fields;
+      }
+      ++index;
+    }
+  }
+
+  private static int quoted(
+    final String line,
+    final int start,
+    final StringBuilder field)
+    throws ValidationProblem
+  {
+    int index = start;
+    while (index < line.length()) {
+      final char c = line.charAt(index);
+      if (c == '"') {
+        if (index + 1 < line.length() && line.charAt(index + 1) == '"') {
+          field.append('"');
+          index += 2;
+          continue;
+        }
+        return index + 1;
+      }
+      field.append(c);
+      ++index;
+    }
+    throw new ValidationProblem("Unterminated quoted field");
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The supported manifest formats.
+ */
+
+enum CSRManifestFormat
+{
+  /**
+   * One user name per line. Blank lines and lines starting with {@code #}
+   * are ignored.
+   */
+
+  TEXT("text"),
+
+  /**
+   * Comma-separated values. The first line is a header naming the
+   * columns; the {@code name} column is required, and the
+   * {@code algorithm} and {@code password} columns are optional. Fields
+   * may be quoted, with {@code ""} denoting a literal quote.
+   */
+
+  CSV("CSV"),
+
+  /**
+   * One JSON object per line, with the string members {@code name},
+   * {@code algorithm} (optional), and {@code password} (optional).
+   */
+
+  NDJSON("NDJSON");
+
+  private final String description;
+
+  CSRManifestFormat(
+    final String in_description)
+  {
+    this.description = in_description;
+  }
+
+  /**
+   * Determine the format of a manifest from its file name: {@code .csv}
+   * files are CSV, {@code .ndjson} and {@code .jsonl} files are NDJSON,
+   * and everything else is plain text.
+   *
+   * @param file The manifest file
+   *
+   * @return The format
+   */
+
+  static CSRManifestFormat fromPath(
+    final Path file)
+  {
+    final Path name = file.getFileName();
+    if (name == null) {
+      return TEXT;
+    }
+    final String lower = name.toString().toLowerCase(Locale.ROOT);
+    if (lower.endsWith(".csv")) {
+      return CSV;
+    }
+    if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+      return NDJSON;
+    }
+    return TEXT;
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.description;
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A parser for single-line JSON objects whose members are all strings
+ * (or {@code null}). This is all that NDJSON manifests require, and
+ * avoids a dependency on a general JSON library.
+ */
+
+final class CSRManifestJSON
+{
+  private final String text;
+  private int index;
+
+  private CSRManifestJSON(
+    final String in_text)
+  {
+    this.text = in_text;
+    this.index = 0;
+  }
+
+  /**
+   * Parse an object. Members with {@code null} values are omitted.
+   *
+   * @param text The text of the object
+   *
+   * @return The members of the object
+   *
+   * @throws ValidationProblem If the text is not an object of strings
+   */
+
+  static Map<String, String> parseObject(
+    final String text)
+    throws ValidationProblem
+  {
+    final CSRManifestJSON p = new CSRManifestJSON(text);
+    final Map<String, String> members = p.object();
+    p.skipWhitespace();
+    if (p.index != text.length()) {
+      throw p.error("Unexpected text after object");
+    }
+    return members;
+  }
+
+  private ValidationProblem error(
+    final String message)
+  {
+    return new ValidationProblem(message + " at column " + (this.index + 1));
+  }
+
+  private void skipWhitespace()
+  {
+    while (this.index < this.text.length()
+      && Character.isWhitespace(this.text.charAt(this.index))) {
+      ++this.index;
+    }
+  }
+
+  private void expect(
+    final char c)
+    throws ValidationProblem
+  {
+    this.skipWhitespace();
+    if (this.index >= this.text.length() || this.text.charAt(this.index) != c) {
+      throw this.error("Expected '" + c + "'");
+    }
+    ++this.index;
+  }
+
+  private boolean consume(
+    final char c)
+  {
+    this.skipWhitespace();
+    if (this.index < this.text.length() && this.text.charAt(this.index) == c) {
+      ++this.index;
+      return true;
+    }
+    return false;
+  }
+
+  private Map<String, String> object()
+    throws ValidationProblem
+  {
+    final Map<String, String> members = new HashMap<>(4);
+    this.expect('{');
+    if (this.consume('}')) {
+      return members;
+    }
+
+    do {
+      this.expect('"');
+      final String key = this.string();
+      this.expect(':');
+      this.skipWhitespace();
+      if (this.text.startsWith("null", this.index)) {
+        this.index += 4;
+      } else {
+        this.expect('"');
+        members.put(key, this.string());
+      }
+    } while (this.consume(','));
+
+    this.expect('}');
+    return members;
+  }
+
+  private String string()
+    throws ValidationProblem
+  {
+    final StringBuilder b = new StringBuilder(32);
+    while (this.index < this.text.length()) {
+      final char c = this.text.charAt(this.index);
+      ++this.index;
+      if (c == '"') {
+        return b.toString();
+      }
+      if (c == '\\') {
+        b.append(this.escape());
+      } else {
+        b.append(c);
+      }
+    }
+    throw this.error("Unterminated string");
+  }
+
+  private char escape()
+    throws ValidationProblem
+  {
+    if (this.index >= this.text.length()) {
+      throw this.error("Unterminated escape");
+    }
+    final char c = this.text.charAt(this.index);
+    ++this.index;
+    switch (c) {
+      case '"':
+      case '\\':
+      case '/':
+        return c;
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u':
+        return this.unicode();
+      default:
+        throw this.error("Invalid escape '\\" + c + "'");
+    }
+  }
+
+  private char unicode()
+    throws ValidationProblem
+  {
+    if (this.index + 4 > this.text.length()) {
+      throw this.error("Truncated unicode escape");
+    }
+    int value = 0;
+    for (int k = 0; k < 4; ++k) {
+      final int digit = Character.digit(this.text.charAt(this.index), 16);
+      if (digit < 0) {
+        throw this.error("Invalid unicode escape");
+      }
+      value = (value << 4) | digit;
+      ++this.index;
+    }
+    return (char) value;
+  }
+}
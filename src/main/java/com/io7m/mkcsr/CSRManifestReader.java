@@ -0,0 +1,405 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A streaming reader of batch manifests.
+ *
+ * Lines are read and validated one at a time as the batch consumes them,
+ * so the only state that grows with the size of the manifest is a
+ * {@link CSRNameIndex} of the names seen so far, which is bounded by a
+ * maximum number of names. Each valid line yields one request. A name
+ * that repeats an earlier line's name, ignoring case, is rejected before
+ * any work is scheduled for it, as the two requests would otherwise write
+ * the same files. Once the index is full, a warning is logged and names
+ * that first appear after that point are no longer checked; names are
+ * compared by fingerprint, so a line may very rarely be rejected as a
+ * duplicate of a different name. Invalid lines are written, with their line
+ * numbers and the reasons they were rejected, to a reject file that is
+ * only created if a line is rejected; reading continues with the next
+ * line. The contents of rejected lines are not copied into the reject
+ * file, as they may contain passwords.
+ *
+ * Entries that do not specify a key algorithm or password use the
+ * defaults given to the reader.
+ */
+
+final class CSRManifestReader implements Iterator<CSRDetails>, Closeable
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRManifestReader.class);
+  }
+
+  private final Path manifest;
+  private final CSRManifestFormat format;
+  private final BufferedReader reader;
+  private final Path rejects_file;
+  private final CSRPassword password;
+  private final CSRKeyAlgorithm algorithm;
+  private final File output;
+  private final CSROutputLayout layout;
+  private final CSRNameIndex names_seen;
+  private @Nullable Writer rejects;
+  private @Nullable CSRDetails next;
+  private int column_name;
+  private int column_algorithm;
+  private int column_password;
+  private long line_number;
+  private long accepted;
+  private long rejected;
+  private boolean names_full;
+
+  private CSRManifestReader(
+    final Path in_manifest,
+    final BufferedReader in_reader,
+    final Path in_rejects_file,
+    final CSRPassword in_password,
+    final CSRKeyAlgorithm in_algorithm,
+    final File in_output,
+    final CSROutputLayout in_layout,
+    final int in_maximum_names)
+  {
+    this.manifest = NullCheck.notNull(in_manifest, "Manifest");
+    this.format = CSRManifestFormat.fromPath(in_manifest);
+    this.reader = NullCheck.notNull(in_reader, "Reader");
+    this.rejects_file = NullCheck.notNull(in_rejects_file, "Rejects");
+    this.password = NullCheck.notNull(in_password, "Password");
+    this.algorithm = NullCheck.notNull(in_algorithm, "Algorithm");
+    this.output = NullCheck.notNull(in_output, "Output");
+    this.layout = NullCheck.notNull(in_layout, "Layout");
+    this.names_seen = new CSRNameIndex(in_maximum_names);
+    this.column_name = 0;
+    this.column_algorithm = -1;
+    this.column_password = -1;
+  }
+
+  /**
+   * Open a manifest. The format is determined by the file name, as
+   * described by {@link CSRManifestFormat#fromPath(Path)}. For CSV
+   * manifests, the header is read and checked immediately.
+   *
+   * @param manifest  The manifest file
+   * @param rejects   The file to which rejected lines are reported
+   * @param password  The password for entries that do not specify one
+   * @param algorithm The key algorithm for entries that do not specify one
+   * @param output    The output directory
+   * @param layout    The output layout
+   * @param maximum   The maximum number of names checked for duplicates
+   *
+   * @return A reader
+   *
+   * @throws IOException       On I/O errors
+   * @throws ValidationProblem If the CSV header is missing or invalid
+   */
+
+  static CSRManifestReader open(
+    final Path manifest,
+    final Path rejects,
+    final CSRPassword password,
+    final CSRKeyAlgorithm algorithm,
+    final File output,
+    final CSROutputLayout layout,
+    final int maximum)
+    throws IOException, ValidationProblem
+  {
+    final CSRManifestReader r =
+      new CSRManifestReader(
+        manifest,
+        Files.newBufferedReader(manifest, StandardCharsets.UTF_8),
+        rejects,
+        password,
+        algorithm,
+        output,
+        layout,
+        maximum);
+
+    try {
+      if (r.format == CSRManifestFormat.CSV) {
+        r.readHeader();
+      }
+    } catch (final IOException | ValidationProblem e) {
+      r.close();
+      throw e;
+    }
+
+    LOG.debug("{}: reading {} manifest", manifest, r.format);
+    return r;
+  }
+
+  private void readHeader()
+    throws IOException, ValidationProblem
+  {
+    while (true) {
+      final String line = this.reader.readLine();
+      if (line == null) {
+        return;
+      }
+      ++this.line_number;
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+
+      final List<String> names = CSRManifestCSV.split(line);
+      this.column_name = names.indexOf("name");
+      this.column_algorithm = names.indexOf("algorithm");
+      this.column_password = names.indexOf("password");
+      if (this.column_name < 0) {
+        throw new ValidationProblem(
+          this.manifest + ":" + this.line_number
+            + ": CSV header must name a 'name' column");
+      }
+      return;
+    }
+  }
+
+  /**
+   * @return The number of lines that yielded requests so far
+   */
+
+  long getAccepted()
+  {
+    return this.accepted;
+  }
+
+  /**
+   * @return The number of lines rejected so far
+   */
+
+  long getRejected()
+  {
+    return this.rejected;
+  }
+
+  /**
+   * @return The file to which rejected lines are reported
+   */
+
+  Path getRejectsFile()
+  {
+    return this.rejects_file;
+  }
+
+  @Override
+  public boolean hasNext()
+  {
+    if (this.next == null) {
+      this.next = this.advance();
+    }
+    return this.next != null;
+  }
+
+  @Override
+  public CSRDetails next()
+  {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final CSRDetails r = NullCheck.notNull(this.next, "Next");
+    this.next = null;
+    return r;
+  }
+
+  private @Nullable CSRDetails advance()
+  {
+    try {
+      while (true) {
+        final String line = this.reader.readLine();
+        if (line == null) {
+          return null;
+        }
+        ++this.line_number;
+
+        try {
+          final CSRDetails d = this.parse(line);
+          if (d != null) {
+            this.checkUnique(d);
+            ++this.accepted;
+            return d;
+          }
+        } catch (final ValidationProblem e) {
+          this.reject(e.getMessage());
+        }
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void checkUnique(
+    final CSRDetails d)
+    throws ValidationProblem
+  {
+    final String name = d.getUserName().toString();
+    final String key = name.toLowerCase(Locale.ROOT);
+    final long first = this.names_seen.get(key);
+    if (first != CSRNameIndex.NONE) {
+      throw new ValidationProblem(
+        "Duplicate name '" + name + "' (first given on line " + first + ")");
+    }
+
+    if (!this.names_seen.put(key, this.line_number) && !this.names_full) {
+      this.names_full = true;
+      LOG.warn(
+        "{}:{}: more than {} names; later names are not checked for duplicates",
+        this.manifest,
+        Long.valueOf(this.line_number),
+        Integer.valueOf(this.names_seen.size()));
+    }
+  }
+
+  private void reject(
+    final String message)
+    throws IOException
+  {
+    ++this.rejected;
+
+    Writer w = this.rejects;
+    if (w == null) {
+      w = Files.newBufferedWriter(this.rejects_file, StandardCharsets.UTF_8);
+      this.rejects = w;
+    }
+
+    final String text = this.manifest + ":" + this.line_number + ": " + message;
+    LOG.debug("rejected {}", text);
+    w.write(text);
+    w.write(System.lineSeparator());
+  }
+
+  private @Nullable CSRDetails parse(
+    final String line)
+    throws ValidationProblem
+  {
+    final String trimmed = line.trim();
+    if (trimmed.isEmpty()) {
+      return null;
+    }
+
+    switch (this.format) {
+      case TEXT:
+        if (trimmed.startsWith("#")) {
+          return null;
+        }
+        return this.details(trimmed, null, null);
+      case CSV:
+        return this.parseCSV(trimmed);
+      case NDJSON:
+        return this.parseJSON(trimmed);
+      default:
+        throw new IllegalStateException("Unhandled format " + this.format);
+    }
+  }
+
+  private CSRDetails parseCSV(
+    final String line)
+    throws ValidationProblem
+  {
+    final List<String> fields = CSRManifestCSV.split(line);
+    return this.details(
+      field(fields, this.column_name),
+      field(fields, this.column_algorithm),
+      field(fields, this.column_password));
+  }
+
+  private static @Nullable String field(
+    final List<String> fields,
+    final int column)
+  {
+    if (column < 0 || column >= fields.size()) {
+      return null;
+    }
+    final String f = fields.get(column);
+    return f.isEmpty() ? null : f;
+  }
+
+  private CSRDetails parseJSON(
+    final String line)
+    throws ValidationProblem
+  {
+    final Map<String, String> members = CSRManifestJSON.parseObject(line);
+    return this.details(
+      members.get("name"),
+      members.get("algorithm"),
+      members.get("password"));
+  }
+
+  private CSRDetails details(
+    final @Nullable String name,
+    final @Nullable String algorithm_name,
+    final @Nullable String password_text)
+    throws ValidationProblem
+  {
+    if (name == null) {
+      throw new ValidationProblem("Missing name");
+    }
+
+    final CSRUserName user_name = new CSRUserName(name);
+
+    final CSRKeyAlgorithm entry_algorithm;
+    if (algorithm_name != null) {
+      entry_algorithm = CSRKeyAlgorithm.parse(algorithm_name);
+    } else {
+      entry_algorithm = this.algorithm;
+    }
+
+    final CSRPassword entry_password;
+    if (password_text != null) {
+      final char[] chars = password_text.toCharArray();
+      entry_password = new CSRPassword(chars, chars);
+    } else {
+      entry_password = this.password;
+    }
+
+    return new CSRDetails(
+      user_name, entry_password, entry_algorithm, this.output, this.layout);
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    try {
+      this.reader.close();
+    } finally {
+      final Writer w = this.rejects;
+      if (w != null) {
+        w.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A listener that accumulates metrics about requests, and renders them
+ * along with JVM heap and garbage collection metrics in Prometheus text
+ * format.
+ */
+
+final class CSRMetrics implements CSRProgressListenerType
+{
+  private static final double[] STAGE_BOUNDS;
+  private static final double[] REQUEST_BOUNDS;
+  private static final EnumSet<CSRStage> WRITE_STAGES;
+
+  static {
+    STAGE_BOUNDS = new double[]{
+      0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0, 60.0,
+    };
+    REQUEST_BOUNDS = new double[]{
+      0.01, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0, 60.0, 120.0,
+    };
+    WRITE_STAGES = EnumSet.of(
+      CSRStage.KEY_WRITE, CSRStage.CSR_WRITE, CSRStage.HASH_WRITE);
+  }
+
+  private final LongAdder requests;
+  private final LongAdder completed;
+  private final LongAdder overloaded;
+  private final EnumMap<CSRFailureKind, LongAdder> failures;
+  private final CSRMetricsHistogram completed_duration;
+  private final CSRMetricsHistogram failed_duration;
+  private final EnumMap<CSRStage, CSRMetricsHistogram> stage_duration;
+  private final EnumMap<CSRStage, LongAdder> bytes_written;
+  private final AtomicInteger active;
+
+  CSRMetrics()
+  {
+    this.requests = new LongAdder();
+    this.completed = new LongAdder();
+    this.overloaded = new LongAdder();
+    this.failures = new EnumMap<>(CSRFailureKind.class);
+    for (final CSRFailureKind k : CSRFailureKind.values()) {
+      this.failures.put(k, new LongAdder());
+    }
+    this.completed_duration = new CSRMetricsHistogram(REQUEST_BOUNDS);
+    this.failed_duration = new CSRMetricsHistogram(REQUEST_BOUNDS);
+    this.stage_duration = new EnumMap<>(CSRStage.class);
+    for (final CSRStage s : CSRStage.values()) {
+      this.stage_duration.put(s, new CSRMetricsHistogram(STAGE_BOUNDS));
+    }
+    this.bytes_written = new EnumMap<>(CSRStage.class);
+    for (final CSRStage s : WRITE_STAGES) {
+      this.bytes_written.put(s, new LongAdder());
+    }
+    this.active = new AtomicInteger();
+  }
+
+  static void writeLabels(
+    final StringBuilder out,
+    final String labels)
+  {
+    if (labels.isEmpty()) {
+      out.append(' ');
+    } else {
+      out.append('{');
+      out.append(labels);
+      out.append("} ");
+    }
+  }
+
+  private static String label(
+    final String name,
+    final String value)
+  {
+    final StringBuilder b = new StringBuilder(value.length() + name.length() + 4);
+    b.append(name);
+    b.append("=\"");
+    for (int index = 0; index < value.length(); ++index) {
+      final char c = value.charAt(index);
+      switch (c) {
+        case '\\':
+          b.append("\\\\");
+          break;
+        case '"':
+          b.append("\\\"");
+          break;
+        case '\n':
+          b.append("\\n");
+          break;
+        default:
+          b.append(c);
+          break;
+      }
+    }
+    b.append('"');
+    return b.toString();
+  }
+
+  private static String stageLabel(
+    final CSRStage stage)
+  {
+    return label("stage", stage.name().toLowerCase(Locale.ROOT));
+  }
+
+  private static void header(
+    final StringBuilder out,
+    final String name,
+    final String type,
+    final String help)
+  {
+    out.append("# HELP ");
+    out.append(name);
+    out.append(' ');
+    out.append(help);
+    out.append('\n');
+    out.append("# TYPE ");
+    out.append(name);
+    out.append(' ');
+    out.append(type);
+    out.append('\n');
+  }
+
+  private static void sample(
+    final StringBuilder out,
+    final String name,
+    final String labels,
+    final long value)
+  {
+    out.append(name);
+    writeLabels(out, labels);
+    out.append(value);
+    out.append('\n');
+  }
+
+  private static void sample(
+    final StringBuilder out,
+    final String name,
+    final String labels,
+    final double value)
+  {
+    out.append(name);
+    writeLabels(out, labels);
+    out.append(value);
+    out.append('\n');
+  }
+
+  /**
+   * Record a request that was rejected before it reached the pipeline.
+   *
+   * @param error The reason the request was rejected
+   */
+
+  void onRejected(
+    final Throwable error)
+  {
+    this.requests.increment();
+    this.failures.get(CSRFailureKind.classify(error)).increment();
+  }
+
+  /**
+   * Record a request that was refused because too many requests were
+   * already in progress.
+   */
+
+  void onOverloaded()
+  {
+    this.overloaded.increment();
+  }
+
+  @Override
+  public void onStageStarted(
+    final CSRDetails details,
+    final CSRStage stage)
+  {
+    if (stage == CSRStage.KEY_GENERATION) {
+      this.requests.increment();
+    }
+    this.active.incrementAndGet();
+  }
+
+  @Override
+  public void onStageFinished(
+    final CSRDetails details,
+    final CSRStage stage,
+    final long elapsed_nanos)
+  {
+    this.active.decrementAndGet();
+    this.stage_duration.get(stage).observe(elapsed_nanos);
+  }
+
+  @Override
+  public void onStageFailed(
+    final CSRDetails details,
+    final CSRStage stage,
+    final long elapsed_nanos,
+    final Throwable error)
+  {
+    this.active.decrementAndGet();
+  }
+
+  @Override
+  public void onBytesWritten(
+    final CSRDetails details,
+    final CSRStage stage,
+    final File file,
+    final long size)
+  {
+    final LongAdder written = this.bytes_written.get(stage);
+    if (written != null) {
+      written.add(size);
+    }
+  }
+
+  @Override
+  public void onCompleted(
+    final CSRDetails details,
+    final CSRHash hash,
+    final long elapsed_nanos)
+  {
+    this.completed.increment();
+    this.completed_duration.observe(elapsed_nanos);
+  }
+
+  @Override
+  public void onFailed(
+    final CSRDetails details,
+    final Throwable error,
+    final long elapsed_nanos)
+  {
+    this.failures.get(CSRFailureKind.classify(error)).increment();
+    this.failed_duration.observe(elapsed_nanos);
+  }
+
+  /**
+   * @return The current values of all metrics in Prometheus text format
+   */
+
+  String render()
+  {
+    final StringBuilder out = new StringBuilder(8192);
+    this.renderRequests(out);
+    renderJVM(out);
+    return out.toString();
+  }
+
+  private void renderRequests(
+    final StringBuilder out)
+  {
+    header(out, "mkcsr_requests_total", "counter",
+           "Requests received.");
+    sample(out, "mkcsr_requests_total", "", this.requests.sum());
+
+    header(out, "mkcsr_requests_completed_total", "counter",
+           "Requests completed successfully.");
+    sample(out, "mkcsr_requests_completed_total", "", this.completed.sum());
+
+    header(out, "mkcsr_requests_overloaded_total", "counter",
+           "Requests refused because too many requests were in progress.");
+    sample(out, "mkcsr_requests_overloaded_total", "", this.overloaded.sum());
+
+    header(out, "mkcsr_requests_failed_total", "counter",
+           "Requests failed, by reason.");
+    for (final CSRFailureKind k : CSRFailureKind.values()) {
+      sample(
+        out,
+        "mkcsr_requests_failed_total",
+        label("reason", k.getLabel()),
+        this.failures.get(k).sum());
+    }
+
+    header(out, "mkcsr_request_duration_seconds", "histogram",
+           "Time taken by requests that reached the pipeline, by outcome.");
+    this.completed_duration.write(
+      out, "mkcsr_request_duration_seconds", label("outcome", "completed"));
+    this.failed_duration.write(
+      out, "mkcsr_request_duration_seconds", label("outcome", "failed"));
+
+    header(out, "mkcsr_stage_duration_seconds", "histogram",
+           "Time taken by successful pipeline stages.");
+    for (final CSRStage s : CSRStage.values()) {
+      this.stage_duration.get(s)
+        .write(out, "mkcsr_stage_duration_seconds", stageLabel(s));
+    }
+
+    header(out, "mkcsr_written_bytes_total", "counter",
+           "Bytes written to files, by stage.");
+    for (final CSRStage s : WRITE_STAGES) {
+      sample(
+        out,
+        "mkcsr_written_bytes_total",
+        stageLabel(s),
+        this.bytes_written.get(s).sum());
+    }
+
+    header(out, "mkcsr_active_workers", "gauge",
+           "Pipeline stages currently executing.");
+    sample(out, "mkcsr_active_workers", "", (long) this.active.get());
+  }
+
+  private static void renderJVM(
+    final StringBuilder out)
+  {
+    final MemoryUsage heap =
+      ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+
+    header(out, "jvm_memory_heap_used_bytes", "gauge",
+           "Used heap memory.");
+    sample(out, "jvm_memory_heap_used_bytes", "", heap.getUsed());
+    header(out, "jvm_memory_heap_committed_bytes", "gauge",
+           "Committed heap memory.");
+    sample(out, "jvm_memory_heap_committed_bytes", "", heap.getCommitted());
+    header(out, "jvm_memory_heap_max_bytes", "gauge",
+           "Maximum heap memory, or -1 if undefined.");
+    sample(out, "jvm_memory_heap_max_bytes", "", heap.getMax());
+
+    header(out, "jvm_gc_collections_total", "counter",
+           "Garbage collections, by collector.");
+    for (final GarbageCollectorMXBean gc
+      : ManagementFactory.getGarbageCollectorMXBeans()) {
+      sample(
+        out,
+        "jvm_gc_collections_total",
+        label("gc", gc.getName()),
+        Math.max(0L, gc.getCollectionCount()));
+    }
+
+    header(out, "jvm_gc_collection_seconds_total", "counter",
+           "Time spent in garbage collection, by collector.");
+    for (final GarbageCollectorMXBean gc
+      : ManagementFactory.getGarbageCollectorMXBeans()) {
+      sample(
+        out,
+        "jvm_gc_collection_seconds_total",
+        label("gc", gc.getName()),
+        (double) Math.max(0L, gc.getCollectionTime()) / 1000.0);
+    }
+
+    header(out, "jvm_threads_current", "gauge",
+           "Live threads.");
+    sample(
+      out,
+      "jvm_threads_current",
+      "",
+      (long) ManagementFactory.getThreadMXBean().getThreadCount());
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with fixed bucket boundaries, rendered in
+ * Prometheus text format. Observations are lock-free.
+ */
+
+final class CSRMetricsHistogram
+{
+  private static final double NANOS_PER_SECOND = 1.0e9;
+
+  private final double[] bounds;
+  private final long[] bounds_nanos;
+  private final LongAdder[] buckets;
+  private final LongAdder sum_nanos;
+
+  /**
+   * Create a histogram.
+   *
+   * @param in_bounds The upper bounds of each bucket in seconds, in
+   *                  ascending order, excluding {@code +Inf}
+   */
+
+  CSRMetricsHistogram(
+    final double[] in_bounds)
+  {
+    NullCheck.notNull(in_bounds, "Bounds");
+
+    this.bounds = in_bounds.clone();
+    this.bounds_nanos = new long[this.bounds.length];
+    this.buckets = new LongAdder[this.bounds.length + 1];
+    for (int index = 0; index < this.bounds.length; ++index) {
+      if (index > 0 && this.bounds[index] <= this.bounds[index - 1]) {
+        throw new IllegalArgumentException("Bounds must be ascending");
+      }
+      this.bounds_nanos[index] =
+        (long) (this.bounds[index] * NANOS_PER_SECOND);
+      this.buckets[index] = new LongAdder();
+    }
+    this.buckets[this.bounds.length] = new LongAdder();
+    this.sum_nanos = new LongAdder();
+  }
+
+  /**
+   * Record an observation.
+   *
+   * @param nanos The observed duration in nanoseconds
+   */
+
+  void observe(
+    final long nanos)
+  {
+    int index = 0;
+    while (index < this.bounds_nanos.length && nanos > this.bounds_nanos[index]) {
+      ++index;
+    }
+    this.buckets[index].increment();
+    this.sum_nanos.add(nanos);
+  }
+
+  /**
+   * Write the samples of the histogram. Buckets are stored individually
+   * and accumulated here, as Prometheus buckets are cumulative. The
+   * count is the sum of all buckets (including the overflow bucket), so
+   * the output is self-consistent even while observations are being
+   * recorded concurrently.
+   *
+   * @param out    The output
+   * @param name   The metric name
+   * @param labels Extra labels, such as {@code stage="csr write"}, or
+   *               the empty string
+   */
+
+  void write(
+    final StringBuilder out,
+    final String name,
+    final String labels)
+  {
+    final String prefix = labels.isEmpty() ? "" : labels + ",";
+
+    long cumulative = 0L;
+    for (int index = 0; index < this.bounds.length; ++index) {
+      cumulative += this.buckets[index].sum();
+      out.append(name);
+      out.append("_bucket{");
+      out.append(prefix);
+      out.append("le=\"");
+      out.append(this.bounds[index]);
+      out.append("\"} ");
+      out.append(cumulative);
+      out.append('\n');
+    }
+
+    final long total =
+      cumulative + this.buckets[this.bounds.length].sum();
+    out.append(name);
+    out.append("_bucket{");
+    out.append(prefix);
+    out.append("le=\"+Inf\"} ");
+    out.append(total);
+    out.append('\n');
+
+    out.append(name);
+    out.append("_sum");
+    CSRMetrics.writeLabels(out, labels);
+    out.append((double) this.sum_nanos.sum() / NANOS_PER_SECOND);
+    out.append('\n');
+
+    out.append(name);
+    out.append("_count");
+    CSRMetrics.writeLabels(out, labels);
+    out.append(total);
+    out.append('\n');
+  }
+}
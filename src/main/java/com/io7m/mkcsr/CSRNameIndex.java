@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+/**
+ * A bounded index from names to non-negative {@code long} values, used to
+ * recognize repeated names in streams of requests that are too large to
+ * hold in memory.
+ *
+ * Names themselves are not stored. Each is reduced to a 64-bit
+ * fingerprint, and the fingerprints and values are held in a pair of
+ * open-addressed arrays that grow as needed, so an entry costs at most 32
+ * bytes whatever the length of its name. Distinct names share a
+ * fingerprint with a probability of roughly n²/2⁶⁵ for n names (about one
+ * in 10⁷ for two million names); callers that cannot tolerate a false
+ * match must recheck a match using the value.
+ *
+ * The index accepts at most a fixed number of names, by default given by
+ * the {@code com.io7m.mkcsr.batch.maximumNames} system property. Names
+ * beyond that are refused rather than growing the index further.
+ */
+
+final class CSRNameIndex
+{
+  /**
+   * The value returned for names that are not in the index.
+   */
+
+  static final long NONE = -1L;
+
+  private static final int DEFAULT_MAXIMUM = 1 << 21;
+  private static final int LARGEST_MAXIMUM = 1 << 28;
+  private static final int INITIAL_SLOTS = 1024;
+
+  private final int maximum;
+  private final int maximum_slots;
+  private long[] fingerprints;
+  private long[] values;
+  private int count;
+
+  /**
+   * Construct an index.
+   *
+   * @param in_maximum The maximum number of names
+   */
+
+  CSRNameIndex(
+    final int in_maximum)
+  {
+    if (in_maximum < 1 || in_maximum > LARGEST_MAXIMUM) {
+      throw new IllegalArgumentException(
+        "Maximum must be in the range [1, " + LARGEST_MAXIMUM + "]");
+    }
+
+    this.maximum = in_maximum;
+    this.maximum_slots = slotsFor(in_maximum);
+
+    final int slots = Math.min(INITIAL_SLOTS, this.maximum_slots);
+    this.fingerprints = new long[slots];
+    this.values = new long[slots];
+    this.count = 0;
+  }
+
+  /**
+   * @return The maximum number of names, from the
+   * {@code com.io7m.mkcsr.batch.maximumNames} system property, or 2097152
+   * if it is not set
+   */
+
+  static int maximumFromSystemProperties()
+  {
+    final int value =
+      Integer.getInteger(
+        "com.io7m.mkcsr.batch.maximumNames", DEFAULT_MAXIMUM).intValue();
+    return Math.max(1, Math.min(LARGEST_MAXIMUM, value));
+  }
+
+  /**
+   * The number of slots needed to hold the given number of names with a
+   * load factor of at most three quarters.
+   */
+
+  private static int slotsFor(
+    final int names)
+  {
+    final int needed = names + names / 3 + 1;
+    final int slots = Integer.highestOneBit(needed);
+    return slots < needed ? slots << 1 : slots;
+  }
+
+  /**
+   * The 64-bit FNV-1a hash of the characters of the name, finished with
+   * the MurmurHash3 mixing function so that the low bits used to choose a
+   * slot depend on every character. Zero marks an empty slot, and so is
+   * never returned.
+   */
+
+  private static long fingerprint(
+    final String name)
+  {
+    long h = 0xcbf29ce484222325L;
+    for (int index = 0; index < name.length(); ++index) {
+      h ^= name.charAt(index);
+      h *= 0x100000001b3L;
+    }
+
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h == 0L ? 1L : h;
+  }
+
+  private int slot(
+    final long fingerprint)
+  {
+    final int mask = this.fingerprints.length - 1;
+    int index = (int) fingerprint & mask;
+    while (true) {
+      final long f = this.fingerprints[index];
+      if (f == fingerprint || f == 0L) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  /**
+   * @param name The name
+   *
+   * @return The value for the name, or {@link #NONE}
+   */
+
+  long get(
+    final String name)
+  {
+    final long f = fingerprint(name);
+    final int index = this.slot(f);
+    return this.fingerprints[index] == f ? this.values[index] : NONE;
+  }
+
+  /**
+   * Set the value for a name.
+   *
+   * @param name  The name
+   * @param value The value
+   *
+   * @return {@code false} if the name is not already in the index and the
+   * index is full
+   */
+
+  boolean put(
+    final String name,
+    final long value)
+  {
+    if (value < 0L) {
+      throw new IllegalArgumentException("Value must be non-negative");
+    }
+
+    final long f = fingerprint(name);
+    int index = this.slot(f);
+    if (this.fingerprints[index] != f) {
+      if (this.count >= this.maximum) {
+        return false;
+      }
+      if (this.count + 1 > this.fingerprints.length / 4 * 3
+        && this.fingerprints.length < this.maximum_slots) {
+        this.grow();
+        index = this.slot(f);
+      }
+      this.fingerprints[index] = f;
+      ++this.count;
+    }
+    this.values[index] = value;
+    return true;
+  }
+
+  /**
+   * Remove the value for a name. The name continues to count towards the
+   * maximum number of names, as removing it from the open-addressed
+   * arrays would break the probe sequences of other names.
+   *
+   * @param name The name
+   */
+
+  void remove(
+    final String name)
+  {
+    final long f = fingerprint(name);
+    final int index = this.slot(f);
+    if (this.fingerprints[index] == f) {
+      this.values[index] = NONE;
+    }
+  }
+
+  /**
+   * @return {@code true} if no more names can be added
+   */
+
+  boolean isFull()
+  {
+    return this.count >= this.maximum;
+  }
+
+  /**
+   * @return The number of names added to the index, including removed names
+   */
+
+  int size()
+  {
+    return this.count;
+  }
+
+  private void grow()
+  {
+    final long[] old_fingerprints = this.fingerprints;
+    final long[] old_values = this.values;
+
+    this.fingerprints = new long[old_fingerprints.length * 2];
+    this.values = new long[old_values.length * 2];
+    for (int index = 0; index < old_fingerprints.length; ++index) {
+      final long f = old_fingerprints[index];
+      if (f != 0L) {
+        final int target = this.slot(f);
+        this.fingerprints[target] = f;
+        this.values[target] = old_values[index];
+      }
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * The supported layouts of output files within an output directory.
+ *
+ * Every layout places the key, CSR, and hash files for an identity
+ * together in a single directory; layouts differ only in which directory
+ * that is. All code that computes or reads back output paths does so via
+ * {@link CSRDetails}, which delegates to the layout.
+ */
+
+enum CSROutputLayout
+{
+  /**
+   * All files are placed directly in the output directory. Suitable for
+   * small numbers of identities.
+   */
+
+  FLAT("flat") {
+    @Override
+    File directory(
+      final File root,
+      final String name)
+    {
+      return root;
+    }
+  },
+
+  /**
+   * Files are placed in a two-level fan-out of directories named by the
+   * first two bytes of the SHA-256 hash of the identity's name, such as
+   * {@code 3f/a9/}. This bounds the size of every directory at 65536 leaf
+   * directories, each containing a handful of identities, even for very
+   * large sets of identities.
+   */
+
+  HASHED("hashed") {
+    @Override
+    File directory(
+      final File root,
+      final String name)
+    {
+      final String hash =
+        CSRHex.encode(
+          CSRThreadResources.sha256().digest(name.getBytes(StandardCharsets.UTF_8)));
+      return new File(new File(root, hash.substring(0, 2)), hash.substring(2, 4));
+    }
+  },
+
+  /**
+   * Each identity's files are placed in a directory named after the
+   * identity.
+   */
+
+  PER_IDENTITY("per-identity") {
+    @Override
+    File directory(
+      final File root,
+      final String name)
+    {
+      return new File(root, name);
+    }
+  };
+
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSROutputLayout.class);
+  }
+
+  private final String description;
+
+  CSROutputLayout(
+    final String in_description)
+  {
+    this.description = in_description;
+  }
+
+  /**
+   * Parse a layout name such as {@code HASHED} or {@code per_identity}.
+   *
+   * @param text The layout name
+   *
+   * @return The layout
+   *
+   * @throws ValidationProblem If the name does not refer to a known layout
+   */
+
+  static CSROutputLayout parse(
+    final String text)
+    throws ValidationProblem
+  {
+    final String upper =
+      text.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+    for (final CSROutputLayout l : values()) {
+      if (l.name().equals(upper)) {
+        return l;
+      }
+    }
+
+    final StringBuilder b = new StringBuilder(128);
+    b.append("Unrecognized output layout '");
+    b.append(text);
+    b.append("' (must be one of:");
+    for (final CSROutputLayout l : values()) {
+      b.append(' ');
+      b.append(l.name());
+    }
+    b.append(')');
+    throw new ValidationProblem(b.toString());
+  }
+
+  /**
+   * @return The layout named by {@code com.io7m.mkcsr.output.layout}
+   * (default {@link #FLAT})
+   */
+
+  static CSROutputLayout fromSystemProperties()
+  {
+    try {
+      return parse(
+        System.getProperty("com.io7m.mkcsr.output.layout", FLAT.name()));
+    } catch (final ValidationProblem e) {
+      LOG.error("using flat output layout: {}", e.getMessage());
+      return FLAT;
+    }
+  }
+
+  /**
+   * @param root The output directory
+   * @param name The identity's name
+   *
+   * @return The directory that holds the identity's files
+   */
+
+  abstract File directory(
+    File root,
+    String name);
+
+  @Override
+  public String toString()
+  {
+    return this.description;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A sink that writes each output as an individual file.
+ *
+ * Each file is written to a temporary file beside its target, and
+ * committing a transaction synchronizes the files to disk and atomically
+ * renames them into place via a {@link CSRFileCommitter}. Synchronization
+ * is controlled by {@code com.io7m.mkcsr.output.sync}: {@code true} (the
+ * default) to synchronize written files and their directories to disk
+ * before reporting success, or {@code false} to only rename them into
+ * place.
+ */
+
+final class CSROutputSinkFiles implements CSROutputSinkType
+{
+  private final CSRFileCommitter committer;
+
+  private CSROutputSinkFiles(
+    final CSRFileCommitter in_committer)
+  {
+    this.committer = NullCheck.notNull(in_committer, "Committer");
+  }
+
+  /**
+   * @return A sink that groups the commits of concurrent requests on a
+   * background thread so that they share the cost of synchronization
+   */
+
+  static CSROutputSinkFiles createGrouping()
+  {
+    return new CSROutputSinkFiles(
+      CSRFileCommitter.createGrouping(
+        CSRFileCommitter.syncFromSystemProperties()));
+  }
+
+  /**
+   * @return A sink that commits on the calling thread
+   */
+
+  static CSROutputSinkFiles createInline()
+  {
+    return new CSROutputSinkFiles(
+      CSRFileCommitter.createInline(
+        CSRFileCommitter.syncFromSystemProperties()));
+  }
+
+  @Override
+  public CSROutputTransactionType begin(
+    final CSRDetails details)
+  {
+    return new Transaction(this.committer);
+  }
+
+  @Override
+  public void close()
+  {
+    this.committer.close();
+  }
+
+  private static final class Transaction implements CSROutputTransactionType
+  {
+    private final CSRFileCommitter committer;
+    private final Queue<CSRPendingFile> pending;
+
+    Transaction(
+      final CSRFileCommitter in_committer)
+    {
+      this.committer = in_committer;
+      this.pending = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override
+    public long write(
+      final File file,
+      final byte[] data)
+      throws IOException
+    {
+      final CSRPendingFile p = CSRPendingFile.write(file, data);
+      this.pending.add(p);
+      return p.getSize();
+    }
+
+    @Override
+    public CompletableFuture<Void> commit()
+    {
+      return this.committer.commit(new ArrayList<>(this.pending));
+    }
+
+    @Override
+    public void discard()
+    {
+      for (final CSRPendingFile p : this.pending) {
+        p.discard();
+      }
+    }
+  }
+}
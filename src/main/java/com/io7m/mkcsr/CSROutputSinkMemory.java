@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A sink that keeps each output in memory rather than writing it to
+ * disk, for requests whose files are returned to the caller and never
+ * need to persist.
+ *
+ * The file names given by {@link CSRDetails} are used only as keys;
+ * nothing is created on the filesystem. Committing a transaction makes
+ * its files available through {@link #contents(File)} immediately.
+ */
+
+final class CSROutputSinkMemory implements CSROutputSinkType
+{
+  private final Map<File, byte[]> files;
+
+  CSROutputSinkMemory()
+  {
+    this.files = new ConcurrentHashMap<>(4);
+  }
+
+  @Override
+  public CSROutputTransactionType begin(
+    final CSRDetails details)
+  {
+    NullCheck.notNull(details, "Details");
+    return new Transaction(this.files);
+  }
+
+  /**
+   * @param file The file, as named by {@link CSRDetails}
+   *
+   * @return The committed contents of the file, or {@code null} if no such
+   * file has been committed
+   */
+
+  @Nullable byte[] contents(
+    final File file)
+  {
+    return this.files.get(NullCheck.notNull(file, "File"));
+  }
+
+  @Override
+  public void close()
+  {
+    this.files.clear();
+  }
+
+  private static final class Transaction implements CSROutputTransactionType
+  {
+    private final Map<File, byte[]> committed;
+    private final Map<File, byte[]> pending;
+
+    Transaction(
+      final Map<File, byte[]> in_committed)
+    {
+      this.committed = in_committed;
+      this.pending = new ConcurrentHashMap<>(4);
+    }
+
+    @Override
+    public long write(
+      final File file,
+      final byte[] data)
+    {
+      this.pending.put(file, data);
+      return (long) data.length;
+    }
+
+    @Override
+    public CompletableFuture<Void> commit()
+    {
+      this.committed.putAll(this.pending);
+      this.pending.clear();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void discard()
+    {
+      this.pending.clear();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.io.IOException;
+
+/**
+ * A destination for the files produced by the pipeline.
+ *
+ * Each request writes its files within a transaction obtained from
+ * {@link #begin(CSRDetails)}, and the files become visible only when the
+ * transaction is committed. Sinks are safe to use from any number of
+ * threads at once.
+ */
+
+interface CSROutputSinkType extends AutoCloseable
+{
+  /**
+   * Begin writing the files for a request.
+   *
+   * @param details The request
+   *
+   * @return A new transaction
+   */
+
+  CSROutputTransactionType begin(
+    CSRDetails details);
+
+  /**
+   * Close the sink. Transactions must not be committed after the sink is
+   * closed.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  @Override
+  void close()
+    throws IOException;
+}
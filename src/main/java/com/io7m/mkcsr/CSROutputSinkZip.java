@@ -0,0 +1,336 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A sink that streams every output into a single zip archive.
+ *
+ * Writing a file only buffers its contents in memory. Committing a
+ * transaction appends all of its files to the archive as consecutive
+ * entries, through one large buffer, so the filesystem sees a single
+ * sequential stream instead of three small files per request. Entries
+ * are named by their paths relative to a root directory, so any output
+ * layout is reproduced within the archive.
+ *
+ * The archive is written to a temporary file beside the target, and is
+ * only renamed into place when the sink is closed; an interrupted run
+ * never leaves a truncated archive behind. Synchronization on close is
+ * controlled by {@code com.io7m.mkcsr.output.sync}, as for
+ * {@link CSROutputSinkFiles}.
+ *
+ * A transaction whose entries would repeat the name of an existing entry
+ * is refused before any of its entries are appended. If appending fails
+ * partway through a transaction, the archive may end with an incomplete
+ * entry, so every later transaction is refused, and closing the sink
+ * deletes the archive instead of renaming it into place.
+ *
+ * The names of all entries are kept in memory until the sink is closed.
+ * {@link ZipOutputStream} also keeps every entry in memory to write the
+ * archive's central directory, so memory grows with the number of entries
+ * (by roughly 200 bytes for each) whatever is done here; batches too large
+ * for that should be written to a directory instead.
+ */
+
+final class CSROutputSinkZip implements CSROutputSinkType
+{
+  private static final Logger LOG;
+  private static final int BUFFER_SIZE;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSROutputSinkZip.class);
+    BUFFER_SIZE = 1 << 20;
+  }
+
+  private final Path target;
+  private final Path temporary;
+  private final Path root;
+  private final FileChannel channel;
+  private final ZipOutputStream zip;
+  private final boolean sync;
+  private final Set<String> names;
+  private final Object lock;
+  private boolean closed;
+  private @Nullable Exception failure;
+
+  private CSROutputSinkZip(
+    final Path in_target,
+    final Path in_temporary,
+    final Path in_root,
+    final FileChannel in_channel,
+    final boolean in_sync)
+  {
+    this.target = NullCheck.notNull(in_target, "Target");
+    this.temporary = NullCheck.notNull(in_temporary, "Temporary");
+    this.root = NullCheck.notNull(in_root, "Root");
+    this.channel = NullCheck.notNull(in_channel, "Channel");
+    this.sync = in_sync;
+    this.zip =
+      new ZipOutputStream(
+        new BufferedOutputStream(Channels.newOutputStream(in_channel), BUFFER_SIZE));
+    this.names = new HashSet<>(1024);
+    this.lock = new Object();
+    this.closed = false;
+  }
+
+  /**
+   * Create a sink.
+   *
+   * @param archive The archive file
+   * @param root    The directory relative to which entries are named
+   *
+   * @return A sink
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static CSROutputSinkZip create(
+    final Path archive,
+    final Path root)
+    throws IOException
+  {
+    final Path target = archive.toAbsolutePath();
+    final Path parent = target.getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    final Path temporary = CSRPendingFile.temporaryFor(target);
+    final FileChannel channel =
+      FileChannel.open(
+        temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+    return new CSROutputSinkZip(
+      target,
+      temporary,
+      root.toAbsolutePath(),
+      channel,
+      CSRFileCommitter.syncFromSystemProperties());
+  }
+
+  private String entryName(
+    final File file)
+  {
+    final Path path = file.toPath().toAbsolutePath();
+    if (!path.startsWith(this.root) || path.equals(this.root)) {
+      return file.getName();
+    }
+
+    final StringBuilder b = new StringBuilder(64);
+    for (final Path element : this.root.relativize(path)) {
+      if (b.length() > 0) {
+        b.append('/');
+      }
+      b.append(element);
+    }
+    return b.toString();
+  }
+
+  @Override
+  public CSROutputTransactionType begin(
+    final CSRDetails details)
+  {
+    return new Transaction(this);
+  }
+
+  private CompletableFuture<Void> append(
+    final List<Entry> entries)
+  {
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    synchronized (this.lock) {
+      try {
+        this.checkAppend(entries);
+      } catch (final IOException e) {
+        future.completeExceptionally(e);
+        return future;
+      }
+
+      try {
+        for (final Entry e : entries) {
+          this.zip.putNextEntry(new ZipEntry(e.name));
+          this.zip.write(e.data);
+          this.zip.closeEntry();
+          this.names.add(e.name);
+        }
+        future.complete(null);
+      } catch (final IOException | RuntimeException e) {
+        LOG.error("{}: append failed; archive abandoned: {}", this.target, e.getMessage());
+        this.failure = e;
+        future.completeExceptionally(e);
+      }
+    }
+    return future;
+  }
+
+  private void checkAppend(
+    final List<Entry> entries)
+    throws IOException
+  {
+    if (this.closed) {
+      throw new IOException("Archive " + this.target + " is closed");
+    }
+
+    final Exception f = this.failure;
+    if (f != null) {
+      throw new IOException(
+        "Archive " + this.target + " is unusable after an earlier failure", f);
+    }
+
+    for (final Entry e : entries) {
+      if (this.names.contains(e.name)) {
+        throw new IOException(
+          "Archive " + this.target + " already contains " + e.name);
+      }
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    synchronized (this.lock) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+
+      final Exception f = this.failure;
+      if (f != null) {
+        this.channel.close();
+        Files.deleteIfExists(this.temporary);
+        throw new IOException(
+          "Archive " + this.target + " was not written due to an earlier failure", f);
+      }
+
+      try {
+        this.zip.finish();
+        this.zip.flush();
+        if (this.sync) {
+          this.channel.force(true);
+        }
+        this.zip.close();
+        move(this.temporary, this.target);
+      } catch (final IOException e) {
+        this.channel.close();
+        Files.deleteIfExists(this.temporary);
+        throw e;
+      }
+      if (this.sync) {
+        CSRPendingFile.syncDirectory(this.target.getParent());
+      }
+
+      LOG.debug(
+        "{}: {} entries, {} bytes",
+        this.target,
+        Integer.valueOf(this.names.size()),
+        Long.valueOf(Files.size(this.target)));
+    }
+  }
+
+  private static void move(
+    final Path source,
+    final Path target)
+    throws IOException
+  {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static final class Entry
+  {
+    private final String name;
+    private final byte[] data;
+
+    Entry(
+      final String in_name,
+      final byte[] in_data)
+    {
+      this.name = in_name;
+      this.data = in_data;
+    }
+  }
+
+  private static final class Transaction implements CSROutputTransactionType
+  {
+    private final CSROutputSinkZip sink;
+    private final List<Entry> entries;
+
+    Transaction(
+      final CSROutputSinkZip in_sink)
+    {
+      this.sink = in_sink;
+      this.entries = new ArrayList<>(3);
+    }
+
+    @Override
+    public long write(
+      final File file,
+      final byte[] data)
+    {
+      final Entry e = new Entry(this.sink.entryName(file), data);
+      synchronized (this.entries) {
+        this.entries.add(e);
+      }
+      return (long) data.length;
+    }
+
+    @Override
+    public CompletableFuture<Void> commit()
+    {
+      final List<Entry> sorted;
+      synchronized (this.entries) {
+        sorted = new ArrayList<>(this.entries);
+      }
+      sorted.sort(Comparator.comparing(e -> e.name));
+      return this.sink.append(sorted);
+    }
+
+    @Override
+    public void discard()
+    {
+      synchronized (this.entries) {
+        this.entries.clear();
+      }
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The files written by a single request, which become visible together
+ * when committed. The files of a transaction may be written concurrently
+ * from different threads.
+ */
+
+interface CSROutputTransactionType
+{
+  /**
+   * Write a file.
+   *
+   * @param file The file, as named by {@link CSRDetails}
+   * @param data The contents of the file
+   *
+   * @return The number of bytes written
+   *
+   * @throws IOException On I/O errors
+   */
+
+  long write(
+    File file,
+    byte[] data)
+    throws IOException;
+
+  /**
+   * Commit all of the written files. Must be called at most once, after
+   * every write has completed.
+   *
+   * @return A future that completes when the files are visible; if the
+   * future fails, some of the files may nevertheless be visible
+   */
+
+  CompletableFuture<Void> commit();
+
+  /**
+   * Discard any files that have not been committed. This may be called
+   * after a failed commit, and leaves any files that the commit had
+   * already made visible in place.
+   */
+
+  void discard();
+}
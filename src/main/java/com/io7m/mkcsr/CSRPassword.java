@@ -18,7 +18,11 @@ package com.io7m.mkcsr;
 
 import com.io7m.jnull.NullCheck;
 
-import javax.swing.JPasswordField;
+import java.io.BufferedReader;
+import java.io.Console;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 final class CSRPassword
 {
@@ -51,22 +55,38 @@ final class CSRPassword
     this.password = in_password;
   }
 
-  static CSRPassword fromPasswordFields(
-    final JPasswordField pass,
-    final JPasswordField confirm)
-    throws ValidationProblem
+  /**
+   * Read a password and its confirmation from the console or, if no
+   * console is available, as two lines of standard input.
+   *
+   * @return The password
+   *
+   * @throws IOException       On I/O errors
+   * @throws ValidationProblem If no password was provided, or the
+   *                           password is invalid
+   */
+
+  static CSRPassword readFromConsole()
+    throws IOException, ValidationProblem
   {
-    try {
-      final CSRPassword p =
-        new CSRPassword(pass.getPassword(), confirm.getPassword());
-      TextFieldUtilities.fieldRestoreVisual(pass);
-      TextFieldUtilities.fieldRestoreVisual(confirm);
-      return p;
-    } catch (final ValidationProblem e) {
-      TextFieldUtilities.fieldSetErrorVisual(pass);
-      TextFieldUtilities.fieldSetErrorVisual(confirm);
-      throw e;
+    final Console console = System.console();
+    if (console != null) {
+      final char[] pass = console.readPassword("Password: ");
+      final char[] confirm = console.readPassword("Password (Confirm): ");
+      if (pass == null || confirm == null) {
+        throw new ValidationProblem("No password was provided");
+      }
+      return new CSRPassword(pass, confirm);
+    }
+
+    final BufferedReader reader =
+      new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    final String pass = reader.readLine();
+    final String confirm = reader.readLine();
+    if (pass == null || confirm == null) {
+      throw new ValidationProblem("No password was provided");
     }
+    return new CSRPassword(pass.toCharArray(), confirm.toCharArray());
   }
 
   public char[] getPassword()
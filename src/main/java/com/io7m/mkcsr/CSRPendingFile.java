@@ -0,0 +1,263 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A file that has been written to a temporary path beside its target,
+ * and that has not yet been committed.
+ *
+ * The channel used to write the file remains open until the file is
+ * committed or discarded, so that the file can be synchronized to disk
+ * as part of a group commit without being reopened. Committing a file
+ * atomically renames the temporary file over the target, so the target
+ * either has its previous contents or its complete new contents, and is
+ * never truncated.
+ */
+
+final class CSRPendingFile
+{
+  private final Path target;
+  private final Path temporary;
+  private final FileChannel channel;
+  private final long size;
+  private volatile boolean committed;
+
+  private CSRPendingFile(
+    final Path in_target,
+    final Path in_temporary,
+    final FileChannel in_channel,
+    final long in_size)
+  {
+    this.target = NullCheck.notNull(in_target, "Target");
+    this.temporary = NullCheck.notNull(in_temporary, "Temporary");
+    this.channel = NullCheck.notNull(in_channel, "Channel");
+    this.size = in_size;
+    this.committed = false;
+  }
+
+  /**
+   * Write data to a new temporary file beside the given target, creating
+   * the target's directory if necessary.
+   *
+   * @param target The target file
+   * @param data   The data
+   *
+   * @return A pending file
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static CSRPendingFile write(
+    final File target,
+    final byte[] data)
+    throws IOException
+  {
+    final Path target_path = target.toPath().toAbsolutePath();
+    final Path temporary = temporaryFor(target_path);
+
+    FileChannel channel;
+    try {
+      channel = open(temporary);
+    } catch (final NoSuchFileException e) {
+      createDirectories(temporary.getParent());
+      channel = open(temporary);
+    }
+
+    try {
+      final ByteBuffer buffer = ByteBuffer.wrap(data);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (final IOException e) {
+      channel.close();
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+
+    return new CSRPendingFile(target_path, temporary, channel, (long) data.length);
+  }
+
+  /**
+   * @param target The target file
+   *
+   * @return A new, unique, hidden temporary file name beside the target
+   */
+
+  static Path temporaryFor(
+    final Path target)
+  {
+    return target.resolveSibling(
+      "." + target.getFileName()
+        + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 16)
+        + ".tmp");
+  }
+
+  private static FileChannel open(
+    final Path file)
+    throws IOException
+  {
+    return FileChannel.open(
+      file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+  }
+
+  /**
+   * Create the given directory and any missing ancestors, and synchronize
+   * the parent of each created directory so that the new directories are
+   * durable before any file within them is committed. Directories are only
+   * created when a write fails, so output layouts that fan out into
+   * subdirectories cost nothing extra once their directories exist.
+   */
+
+  private static void createDirectories(
+    final Path directory)
+    throws IOException
+  {
+    Path existing = directory;
+    while (existing != null && !Files.isDirectory(existing)) {
+      existing = existing.getParent();
+    }
+
+    Files.createDirectories(directory);
+    for (Path p = directory; p != null && !p.equals(existing); p = p.getParent()) {
+      final Path parent = p.getParent();
+      if (parent != null) {
+        syncDirectory(parent);
+      }
+    }
+  }
+
+  /**
+   * Synchronize the directory containing the given file, so that renames
+   * within it are durable. Platforms that cannot open directories (such
+   * as Windows) silently skip this step.
+   *
+   * @param directory The directory
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static void syncDirectory(
+    final Path directory)
+    throws IOException
+  {
+    final FileChannel dir;
+    try {
+      dir = FileChannel.open(directory, StandardOpenOption.READ);
+    } catch (final IOException e) {
+      return;
+    }
+    try (FileChannel c = dir) {
+      c.force(true);
+    }
+  }
+
+  /**
+   * @return The target file
+   */
+
+  Path getTarget()
+  {
+    return this.target;
+  }
+
+  /**
+   * @return The number of bytes written
+   */
+
+  long getSize()
+  {
+    return this.size;
+  }
+
+  /**
+   * Synchronize the written data to disk.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void sync()
+    throws IOException
+  {
+    this.channel.force(true);
+  }
+
+  /**
+   * Close the file and atomically rename it over the target. Filesystems
+   * that cannot rename atomically fall back to an ordinary replacing
+   * rename. Once this method has returned, the file is committed and
+   * {@link #discard()} has no effect.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void commit()
+    throws IOException
+  {
+    this.channel.close();
+    try {
+      Files.move(this.temporary, this.target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      Files.move(this.temporary, this.target, StandardCopyOption.REPLACE_EXISTING);
+    }
+    this.committed = true;
+  }
+
+  /**
+   * @return {@code true} if the file has been renamed over its target
+   */
+
+  boolean isCommitted()
+  {
+    return this.committed;
+  }
+
+  /**
+   * Close and delete the temporary file, leaving the target untouched.
+   * A file that has already been committed is left in place.
+   */
+
+  void discard()
+  {
+    if (this.committed) {
+      return;
+    }
+    try {
+      this.channel.close();
+    } catch (final IOException e) {
+      // Nothing useful can be done
+    }
+    try {
+      Files.deleteIfExists(this.temporary);
+    } catch (final IOException e) {
+      // The temporary file is left behind, and is harmless
+    }
+  }
+}
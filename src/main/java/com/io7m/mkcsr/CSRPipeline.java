@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.util.io.pem.PemObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The sequence of steps required to produce a key and CSR for a single
+ * set of details. Used by both the GUI and the batch generator.
+ */
+
+final class CSRPipeline
+{
+  private CSRPipeline()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Execute the pipeline on the calling thread, writing individual files.
+   *
+   * @param details    The details
+   * @param keys       The source of key pairs
+   * @param encryption The private key encryption scheme
+   * @param listener   A receiver of progress events
+   *
+   * @return The hash of the written CSR
+   *
+   * @throws NoSuchAlgorithmException  If the key algorithm is unavailable
+   * @throws NoSuchProviderException   If the security provider is unavailable
+   * @throws OperatorCreationException If the key cannot be encrypted or the
+   *                                   CSR cannot be signed
+   * @throws IOException               On I/O errors
+   */
+
+  static CSRHash execute(
+    final CSRDetails details,
+    final CSRKeyPairSourceType keys,
+    final CSRKeyEncryption encryption,
+    final CSRProgressListenerType listener)
+    throws NoSuchAlgorithmException,
+    NoSuchProviderException,
+    OperatorCreationException,
+    IOException
+  {
+    try {
+      return executeAsync(
+        CSRStageExecutor.callingThread(),
+        CSROutputSinkFiles.createInline(),
+        details,
+        keys,
+        encryption,
+        listener).join();
+    } catch (final CompletionException e) {
+      final Throwable x = CSRStageExecutor.unwrap(e);
+      if (x instanceof NoSuchAlgorithmException) {
+        throw (NoSuchAlgorithmException) x;
+      }
+      if (x instanceof NoSuchProviderException) {
+        throw (NoSuchProviderException) x;
+      }
+      if (x instanceof OperatorCreationException) {
+        throw (OperatorCreationException) x;
+      }
+      if (x instanceof IOException) {
+        throw (IOException) x;
+      }
+      if (x instanceof RuntimeException) {
+        throw (RuntimeException) x;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Execute the pipeline as a graph of stages. Once the key pair has been
+   * generated, the private key is encrypted and saved while the CSR is
+   * signed and saved. Files are written within a transaction of the
+   * given sink, and only when every file has been written is the
+   * transaction committed. A request that fails before the commit leaves
+   * no files behind. The listener may be called from any thread.
+   *
+   * @param stages     The stage executor
+   * @param sink       The destination of written files
+   * @param details    The details
+   * @param keys       The source of key pairs
+   * @param encryption The private key encryption scheme
+   * @param listener   A receiver of progress events
+   *
+   * @return The hash of the written CSR, available once every stage has
+   * completed
+   */
+
+  static CompletableFuture<CSRHash> executeAsync(
+    final CSRStageExecutor stages,
+    final CSROutputSinkType sink,
+    final CSRDetails details,
+    final CSRKeyPairSourceType keys,
+    final CSRKeyEncryption encryption,
+    final CSRProgressListenerType listener)
+  {
+    final long time_then = System.nanoTime();
+
+    final CompletableFuture<KeyPair> kp =
+      stages.cpu(
+        CompletableFuture.completedFuture(details.getKeyAlgorithm()),
+        timed(
+          listener,
+          details,
+          CSRStage.KEY_GENERATION,
+          algorithm -> keys.keyPair(
+            algorithm, message -> listener.onMessage(details, message))));
+
+    final CompletableFuture<PemObject> key_encrypted =
+      stages.cpu(
+        kp,
+        timed(
+          listener,
+          details,
+          CSRStage.KEY_ENCRYPTION,
+          k -> details.encryptPrivateKey(k, encryption)));
+
+    final CSROutputTransactionType output = sink.begin(details);
+
+    final CompletableFuture<Void> key_written =
+      stages.io(
+        key_encrypted,
+        timed(listener, details, CSRStage.KEY_WRITE, pem -> {
+          write(
+            listener,
+            details,
+            output,
+            CSRStage.KEY_WRITE,
+            details.getPrivateKeyFile(),
+            details.encodePrivateKey(pem));
+          return null;
+        }));
+
+    final CompletableFuture<byte[]> csr =
+      stages.cpu(
+        kp,
+        timed(listener, details, CSRStage.CSR_SIGNING, details::generateCSR));
+
+    final CompletableFuture<CSRHash> csr_written =
+      stages.io(
+        csr,
+        timed(listener, details, CSRStage.CSR_WRITE, c -> {
+          final byte[] data = details.encodeCSR(c);
+          write(
+            listener,
+            details,
+            output,
+            CSRStage.CSR_WRITE,
+            details.getCSRFile(),
+            data);
+          return CSRHash.sha256(data);
+        }));
+
+    final CompletableFuture<CSRHash> hash_written =
+      stages.io(
+        csr_written,
+        timed(listener, details, CSRStage.HASH_WRITE, hash -> {
+          write(
+            listener,
+            details,
+            output,
+            CSRStage.HASH_WRITE,
+            details.getHashFile(),
+            details.encodeCSRHash(hash));
+          return hash;
+        }));
+
+    return hash_written
+      .thenCombine(key_written, (hash, ignored) -> hash)
+      .thenCompose(hash -> commit(listener, details, output, hash))
+      .whenComplete((hash, x) -> {
+        final long elapsed = System.nanoTime() - time_then;
+        if (x == null) {
+          listener.onCompleted(details, hash, elapsed);
+        } else {
+          output.discard();
+          listener.onFailed(details, CSRStageExecutor.unwrap(x), elapsed);
+        }
+      });
+  }
+
+  private static CompletableFuture<CSRHash> commit(
+    final CSRProgressListenerType listener,
+    final CSRDetails details,
+    final CSROutputTransactionType output,
+    final CSRHash hash)
+  {
+    listener.onStageStarted(details, CSRStage.COMMIT);
+    final long time_then = System.nanoTime();
+    return output.commit().handle((ignored, x) -> {
+      final long elapsed = System.nanoTime() - time_then;
+      if (x == null) {
+        listener.onStageFinished(details, CSRStage.COMMIT, elapsed);
+        return hash;
+      }
+      final Throwable e = CSRStageExecutor.unwrap(x);
+      listener.onStageFailed(details, CSRStage.COMMIT, elapsed, e);
+      throw new CompletionException(e);
+    });
+  }
+
+  private static void write(
+    final CSRProgressListenerType listener,
+    final CSRDetails details,
+    final CSROutputTransactionType output,
+    final CSRStage stage,
+    final File file,
+    final byte[] data)
+    throws IOException
+  {
+    listener.onBytesWritten(details, stage, file, output.write(file, data));
+  }
+
+  private static <A, B> CSRStageType<A, B> timed(
+    final CSRProgressListenerType listener,
+    final CSRDetails details,
+    final CSRStage stage,
+    final CSRStageType<A, B> f)
+  {
+    return input -> {
+      listener.onStageStarted(details, stage);
+      final long time_then = System.nanoTime();
+      try {
+        final B result = f.execute(input);
+        listener.onStageFinished(details, stage, System.nanoTime() - time_then);
+        return result;
+      } catch (final Exception e) {
+        listener.onStageFailed(details, stage, System.nanoTime() - time_then, e);
+        throw e;
+      }
+    };
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.io.File;
+
+/**
+ * A receiver of progress events from the pipeline.
+ *
+ * Events for a single request are delivered in the order that they
+ * occurred within each branch of the stage graph, but events from
+ * concurrently executing stages may be interleaved, and may arrive on any
+ * thread. Implementations must be thread-safe and should return quickly.
+ */
+
+interface CSRProgressListenerType
+{
+  /**
+   * A stage has started.
+   *
+   * @param details The request
+   * @param stage   The stage
+   */
+
+  default void onStageStarted(
+    final CSRDetails details,
+    final CSRStage stage)
+  {
+
+  }
+
+  /**
+   * A stage has finished successfully.
+   *
+   * @param details       The request
+   * @param stage         The stage
+   * @param elapsed_nanos The time taken by the stage
+   */
+
+  default void onStageFinished(
+    final CSRDetails details,
+    final CSRStage stage,
+    final long elapsed_nanos)
+  {
+
+  }
+
+  /**
+   * A stage has failed. No further events are delivered for the stage,
+   * and the request will fail.
+   *
+   * @param details       The request
+   * @param stage         The stage
+   * @param elapsed_nanos The time taken by the stage before it failed
+   * @param error         The error
+   */
+
+  default void onStageFailed(
+    final CSRDetails details,
+    final CSRStage stage,
+    final long elapsed_nanos,
+    final Throwable error)
+  {
+
+  }
+
+  /**
+   * A stage has written a file.
+   *
+   * @param details The request
+   * @param stage   The stage
+   * @param file    The file
+   * @param size    The number of bytes written
+   */
+
+  default void onBytesWritten(
+    final CSRDetails details,
+    final CSRStage stage,
+    final File file,
+    final long size)
+  {
+
+  }
+
+  /**
+   * A stage has produced an informational message intended for humans.
+   *
+   * @param details The request
+   * @param message The message
+   */
+
+  default void onMessage(
+    final CSRDetails details,
+    final String message)
+  {
+
+  }
+
+  /**
+   * Every stage of a request has finished successfully.
+   *
+   * @param details       The request
+   * @param hash          The hash of the written CSR
+   * @param elapsed_nanos The time taken by the whole request
+   */
+
+  default void onCompleted(
+    final CSRDetails details,
+    final CSRHash hash,
+    final long elapsed_nanos)
+  {
+
+  }
+
+  /**
+   * A request has failed. This is delivered exactly once for a failed
+   * request, after all stages that were running have finished or failed.
+   *
+   * @param details       The request
+   * @param error         The error raised by one of the stages that failed;
+   *                      stages on parallel branches may fail
+   *                      concurrently, and which of their errors is
+   *                      reported is unspecified
+   * @param elapsed_nanos The time taken by the whole request
+   */
+
+  default void onFailed(
+    final CSRDetails details,
+    final Throwable error,
+    final long elapsed_nanos)
+  {
+
+  }
+}
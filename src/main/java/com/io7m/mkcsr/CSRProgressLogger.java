@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A listener that logs progress events along with per-stage timings.
+ */
+
+final class CSRProgressLogger implements CSRProgressListenerType
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRProgressLogger.class);
+  }
+
+  CSRProgressLogger()
+  {
+
+  }
+
+  private static Long millis(
+    final long nanos)
+  {
+    return Long.valueOf(TimeUnit.NANOSECONDS.toMillis(nanos));
+  }
+
+  @Override
+  public void onStageFinished(
+    final CSRDetails details,
+    final CSRStage stage,
+    final long elapsed_nanos)
+  {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(
+        "{}: {} took {}ms",
+        details.getUserName(),
+        stage,
+        millis(elapsed_nanos));
+    }
+  }
+
+  @Override
+  public void onStageFailed(
+    final CSRDetails details,
+    final CSRStage stage,
+    final long elapsed_nanos,
+    final Throwable error)
+  {
+    LOG.error(
+      "{}: {} failed after {}ms: {}",
+      details.getUserName(),
+      stage,
+      millis(elapsed_nanos),
+      error.getMessage());
+  }
+
+  @Override
+  public void onBytesWritten(
+    final CSRDetails details,
+    final CSRStage stage,
+    final File file,
+    final long size)
+  {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(
+        "{}: wrote {} bytes to {}",
+        details.getUserName(),
+        Long.valueOf(size),
+        file);
+    }
+  }
+
+  @Override
+  public void onMessage(
+    final CSRDetails details,
+    final String message)
+  {
+    LOG.debug("{}: {}", details.getUserName(), message);
+  }
+
+  @Override
+  public void onCompleted(
+    final CSRDetails details,
+    final CSRHash hash,
+    final long elapsed_nanos)
+  {
+    LOG.info(
+      "{}: completed in {}ms",
+      details.getUserName(),
+      millis(elapsed_nanos));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+
+import java.util.function.Consumer;
+
+/**
+ * A listener that describes progress events as human-readable messages.
+ */
+
+final class CSRProgressMessages implements CSRProgressListenerType
+{
+  private final Consumer<String> receiver;
+
+  CSRProgressMessages(
+    final Consumer<String> in_receiver)
+  {
+    this.receiver = NullCheck.notNull(in_receiver, "Receiver");
+  }
+
+  @Override
+  public void onStageStarted(
+    final CSRDetails details,
+    final CSRStage stage)
+  {
+    switch (stage) {
+      case KEY_GENERATION:
+        break;
+      case KEY_ENCRYPTION:
+        this.receiver.accept("Encrypting private key...");
+        break;
+      case KEY_WRITE:
+        this.receiver.accept(
+          "Saving private key to " + details.getPrivateKeyFile() + "...");
+        break;
+      case CSR_SIGNING:
+        this.receiver.accept("Generating certificate signing request...");
+        break;
+      case CSR_WRITE:
+        this.receiver.accept(
+          "Writing certificate signing request to "
+            + details.getCSRFile()
+            + "...");
+        break;
+      case HASH_WRITE:
+        this.receiver.accept(
+          "Saving CSR hash to " + details.getHashFile() + "...");
+        break;
+      case COMMIT:
+        this.receiver.accept(
+          "Committing files to " + details.getDirectory() + "...");
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override
+  public void onMessage(
+    final CSRDetails details,
+    final String message)
+  {
+    this.receiver.accept(message);
+  }
+
+  @Override
+  public void onCompleted(
+    final CSRDetails details,
+    final CSRHash hash,
+    final long elapsed_nanos)
+  {
+    this.receiver.accept("The hash value of your CSR is " + hash + ".");
+  }
+}
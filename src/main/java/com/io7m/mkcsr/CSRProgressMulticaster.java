@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A listener that delivers every event to each of a fixed list of
+ * listeners, in order.
+ */
+
+final class CSRProgressMulticaster implements CSRProgressListenerType
+{
+  private final List<CSRProgressListenerType> listeners;
+
+  CSRProgressMulticaster(
+    final List<CSRProgressListenerType> in_listeners)
+  {
+    NullCheck.notNull(in_listeners, "Listeners");
+    this.listeners =
+      Collections.unmodifiableList(new ArrayList<>(in_listeners));
+  }
+
+  @Override
+  public void onStageStarted(
+    final CSRDetails details,
+    final CSRStage stage)
+  {
+    for (final CSRProgressListenerType l : this.listeners) {
+      l.onStageStarted(details, stage);
+    }
+  }
+
+  @Override
+  public void onStageFinished(
+    final CSRDetails details,
+    final CSRStage stage,
+    final long elapsed_nanos)
+  {
+    for (final CSRProgressListenerType l : this.listeners) {
+      l.onStageFinished(details, stage, elapsed_nanos);
+    }
+  }
+
+  @Override
+  public void onStageFailed(
+    final CSRDetails details,
+    final CSRStage stage,
+    final long elapsed_nanos,
+    final Throwable error)
+  {
+    for (final CSRProgressListenerType l : this.listeners) {
+      l.onStageFailed(details, stage, elapsed_nanos, error);
+    }
+  }
+
+  @Override
+  public void onBytesWritten(
+    final CSRDetails details,
+    final CSRStage stage,
+    final File file,
+    final long size)
+  {
+    for (final CSRProgressListenerType l : this.listeners) {
+      l.onBytesWritten(details, stage, file, size);
+    }
+  }
+
+  @Override
+  public void onMessage(
+    final CSRDetails details,
+    final String message)
+  {
+    for (final CSRProgressListenerType l : this.listeners) {
+      l.onMessage(details, message);
+    }
+  }
+
+  @Override
+  public void onCompleted(
+    final CSRDetails details,
+    final CSRHash hash,
+    final long elapsed_nanos)
+  {
+    for (final CSRProgressListenerType l : this.listeners) {
+      l.onCompleted(details, hash, elapsed_nanos);
+    }
+  }
+
+  @Override
+  public void onFailed(
+    final CSRDetails details,
+    final Throwable error,
+    final long elapsed_nanos)
+  {
+    for (final CSRProgressListenerType l : this.listeners) {
+      l.onFailed(details, error, elapsed_nanos);
+    }
+  }
+}
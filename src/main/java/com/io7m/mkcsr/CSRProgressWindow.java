@@ -16,9 +16,9 @@
 
 package com.io7m.mkcsr;
 
+import com.io7m.jnull.NullCheck;
 import com.io7m.jnull.Nullable;
 import net.java.dev.designgridlayout.DesignGridLayout;
-import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,15 +27,19 @@ import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.ScrollPaneConstants;
-import javax.swing.SwingWorker;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 import java.awt.Dimension;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.security.KeyPair;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * A window that shows the progress of generating a key and CSR. The window
+ * is constructed first, and the generation begins when {@link #start()}
+ * is called.
+ */
+
 final class CSRProgressWindow extends JFrame
 {
   private static final long serialVersionUID;
@@ -48,11 +52,27 @@ final class CSRProgressWindow extends JFrame
 
   private final JTextArea area;
   private final AtomicBoolean done;
+  private final CSRDetails details;
+  private final CSRStageExecutor stages;
+  private final CSROutputSinkType sink;
+  private final CSRKeyPairSourceType keys;
+  private final CSRKeyEncryption encryption;
+  private boolean started;
 
   CSRProgressWindow(
-    final CSRDetails d)
+    final CSRDetails in_details,
+    final CSRStageExecutor in_stages,
+    final CSROutputSinkType in_sink,
+    final CSRKeyPairSourceType in_keys,
+    final CSRKeyEncryption in_encryption)
   {
     super("Progress");
+
+    this.details = NullCheck.notNull(in_details, "Details");
+    this.stages = NullCheck.notNull(in_stages, "Stages");
+    this.sink = NullCheck.notNull(in_sink, "Sink");
+    this.keys = NullCheck.notNull(in_keys, "Keys");
+    this.encryption = NullCheck.notNull(in_encryption, "Encryption");
     this.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
 
     this.addWindowListener(new ClosingWindowAdapter());
@@ -67,103 +87,87 @@ final class CSRProgressWindow extends JFrame
 
     final DesignGridLayout dg = new DesignGridLayout(this.getContentPane());
     dg.row().grid().add(scroll);
-
-    final SwingWorker<Void, String> worker = new GeneratingWorker(d);
-
-    worker.execute();
   }
 
-  private final class GeneratingWorker extends SwingWorker<Void, String>
-  {
-    private final CSRDetails details;
+  /**
+   * Start generating the key and CSR. Must be called on the event
+   * dispatch thread, once the window is fully constructed, and at most
+   * once.
+   */
 
-    GeneratingWorker(
-      final CSRDetails inDetails)
-    {
-      this.details = inDetails;
+  void start()
+  {
+    if (!SwingUtilities.isEventDispatchThread()) {
+      throw new IllegalStateException("Must be called on the event dispatch thread");
     }
-
-    @Override
-    protected
-    @Nullable
-    Void doInBackground()
-      throws Exception
-    {
-      try {
-        this
-          .publish(
-            "Generating private key (can take ~30 seconds on a reasonably fast machine)...");
-        final KeyPair kp = CSRDetails.generateKeyPair();
-
-        this.publish("Encrypting and saving private key to "
-                       + this.details.getPrivateKeyFile()
-                       + "...");
-        this.details.writePrivateKey(kp);
-
-        this.publish("Generating certificate signing request...");
-        final PKCS10CertificationRequest csr = this.details.generateCSR(kp);
-
-        this.publish("Writing certificate signing request to "
-                       + this.details.getCSRFile()
-                       + "...");
-        this.details.writeCSR(csr);
-
-        this.publish("Hashing CSR and saving hash to "
-                       + this.details.getHashFile()
-                       + "...");
-        this.details.writeCSRHash();
-
-        this.publish("The hash value of your CSR is "
-                       + this.details.getHashValue()
-                       + ".");
-
-        this.publish("Completed successfully.");
-        CSRProgressWindow.this.done.set(true);
-        return null;
-      } catch (final Exception x) {
-        x.fillInStackTrace();
-        final StringBuilder b = new StringBuilder(128);
-        b.append("Fatal: ");
-
-        while (true) {
-          b.append(x.getMessage());
-          b.append(System.lineSeparator());
-
-          for (final StackTraceElement e : x.getStackTrace()) {
-            b.append(" at ");
-            b.append(e.getClassName());
-            b.append(" ");
-            b.append(e.getFileName());
-            b.append(":");
-            b.append(e.getLineNumber());
-            b.append(System.lineSeparator());
-          }
-          if (x.getCause() != null) {
-            b.append("Caused by:");
-            b.append(System.lineSeparator());
-          } else {
-            break;
-          }
+    if (this.started) {
+      throw new IllegalStateException("Generation has already started");
+    }
+    this.started = true;
+
+    final CSRProgressListenerType listener =
+      new CSRProgressMessages(this::publish);
+
+    CSRPipeline.executeAsync(
+      this.stages, this.sink, this.details, this.keys, this.encryption, listener)
+      .whenComplete((hash, x) -> {
+        if (x == null) {
+          this.publish("Completed successfully.");
+        } else {
+          final Throwable cause = CSRStageExecutor.unwrap(x);
+          LOG.error("generation failed: ", cause);
+          this.publish(describeFailure(cause));
         }
+        this.done.set(true);
+      });
+  }
 
-        this.publish(b.toString());
-        CSRProgressWindow.this.done.set(true);
-        x.printStackTrace();
-        throw x;
+  private static String describeFailure(
+    final Throwable x)
+  {
+    final StringBuilder b = new StringBuilder(128);
+    b.append("Fatal: ");
+
+    Throwable e = x;
+    while (true) {
+      b.append(e.getMessage());
+      b.append(System.lineSeparator());
+
+      for (final StackTraceElement s : e.getStackTrace()) {
+        b.append(" at ");
+        b.append(s.getClassName());
+        b.append(" ");
+        b.append(s.getFileName());
+        b.append(":");
+        b.append(s.getLineNumber());
+        b.append(System.lineSeparator());
       }
-    }
-
-    @Override
-    protected void process(
-      final @Nullable List<String> chunks)
-    {
-      assert chunks != null;
 
-      for (final String c : chunks) {
-        CSRProgressWindow.this.area.append(c + System.lineSeparator());
-        LOG.info("{}", c);
+      final Throwable cause = e.getCause();
+      if (cause != null) {
+        b.append("Caused by:");
+        b.append(System.lineSeparator());
+        e = cause;
+      } else {
+        break;
       }
     }
+    return b.toString();
+  }
+
+  /**
+   * Append a progress message to the window. May be called from any
+   * thread.
+   *
+   * @param message The message
+   */
+
+  private void publish(
+    final String message)
+  {
+    LOG.info("{}", message);
+    SwingUtilities.invokeLater(
+      () -> this.area.append(message + System.lineSeparator()));
   }
 
   private final class ClosingWindowAdapter extends WindowAdapter
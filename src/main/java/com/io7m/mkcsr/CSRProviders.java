@@ -0,0 +1,271 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.jcajce.provider.asymmetric.EC;
+import org.bouncycastle.jcajce.provider.asymmetric.EdEC;
+import org.bouncycastle.jcajce.provider.asymmetric.RSA;
+import org.bouncycastle.jcajce.provider.config.ConfigurableProvider;
+import org.bouncycastle.jcajce.provider.symmetric.AES;
+import org.bouncycastle.jcajce.provider.symmetric.PBEPBKDF2;
+import org.bouncycastle.jcajce.provider.symmetric.SCRYPT;
+import org.bouncycastle.jcajce.provider.util.AlgorithmProvider;
+import org.bouncycastle.jcajce.provider.util.AsymmetricKeyInfoConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.Provider;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access to the security providers used by the pipeline.
+ *
+ * The full BouncyCastle provider registers several hundred algorithms,
+ * loading a class for each family by name, when it is constructed. The
+ * pipeline uses only a handful of these, so it instead uses a provider that
+ * is configured with the BouncyCastle algorithm mappings for just the key
+ * algorithms, signature algorithms, and key encryption schemes that mkcsr
+ * supports. The provider is constructed on first use rather than at
+ * startup, and is passed directly to each lookup rather than being added
+ * to the global provider list, so programs that never generate a key never
+ * pay for its construction. It is named {@link #NAME} rather than
+ * {@code BC}, so that it is never mistaken for the full provider.
+ *
+ * The mappings are BouncyCastle-internal classes, so this provider is
+ * only known to match the full provider of the version given by
+ * {@link #BOUNCY_CASTLE_VERSION}. The tests check that every key that
+ * this provider registers has the same value in the full provider on the
+ * class path, and that the full provider has the same version, so a
+ * BouncyCastle upgrade fails the build until the mappings are reviewed.
+ *
+ * The mappings register the classes that implement each algorithm by
+ * name. The implementations that the pipeline actually uses are also
+ * listed here, so that they are visible to tools that remove unreachable
+ * classes, and the provider checks on construction that each of them is
+ * registered. The same classes must be listed in the native-image
+ * reflection configuration, because the JCA instantiates them
+ * reflectively. Note that some BouncyCastle implementations (such as the
+ * AES cipher) construct the full provider internally on first use; in a
+ * minimized jar, the full provider silently omits any algorithm families
+ * that were removed.
+ */
+
+final class CSRProviders
+{
+  /**
+   * The name of the provider.
+   */
+
+  static final String NAME;
+
+  /**
+   * The version of BouncyCastle from which the provider's mappings are
+   * taken.
+   */
+
+  static final double BOUNCY_CASTLE_VERSION;
+
+  private static final Logger LOG;
+
+  static {
+    NAME = "mkcsr-BC";
+    BOUNCY_CASTLE_VERSION = 1.70;
+    LOG = LoggerFactory.getLogger(CSRProviders.class);
+  }
+
+  private CSRProviders()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * @return The BouncyCastle provider
+   */
+
+  static Provider bouncyCastle()
+  {
+    return BouncyCastleHolder.PROVIDER;
+  }
+
+  private static final class BouncyCastleHolder
+  {
+    private static final Provider PROVIDER;
+
+    static {
+      final Class<?>[] services = {
+        org.bouncycastle.jcajce.provider.asymmetric.rsa.KeyPairGeneratorSpi.class,
+        org.bouncycastle.jcajce.provider.asymmetric.rsa.KeyFactorySpi.class,
+        org.bouncycastle.jcajce.provider.asymmetric.rsa.DigestSignatureSpi.SHA256.class,
+        org.bouncycastle.jcajce.provider.asymmetric.ec.KeyPairGeneratorSpi.EC.class,
+        org.bouncycastle.jcajce.provider.asymmetric.ec.KeyFactorySpi.EC.class,
+        org.bouncycastle.jcajce.provider.asymmetric.ec.SignatureSpi.ecDSA256.class,
+        org.bouncycastle.jcajce.provider.asymmetric.ec.SignatureSpi.ecDSA384.class,
+        org.bouncycastle.jcajce.provider.asymmetric.edec.KeyPairGeneratorSpi.Ed25519.class,
+        org.bouncycastle.jcajce.provider.asymmetric.edec.KeyFactorySpi.Ed25519.class,
+        org.bouncycastle.jcajce.provider.asymmetric.edec.SignatureSpi.Ed25519.class,
+        AES.CBC.class,
+        AES.AlgParams.class,
+        PBEPBKDF2.PBKDF2withSHA256.class,
+        SCRYPT.ScryptWithUTF8.class,
+      };
+
+      PROVIDER = new BouncyCastleSubset(
+        services,
+        new RSA.Mappings(),
+        new EC.Mappings(),
+        new EdEC.Mappings(),
+        new AES.Mappings(),
+        new PBEPBKDF2.Mappings(),
+        new SCRYPT.Mappings());
+    }
+
+    private BouncyCastleHolder()
+    {
+      throw new UnreachableCodeException();
+    }
+  }
+
+  /**
+   * A provider configured with a subset of the BouncyCastle algorithm
+   * mappings. This follows the registration rules of the full provider:
+   * registering the same key twice is an error.
+   */
+
+  private static final class BouncyCastleSubset extends Provider
+    implements ConfigurableProvider
+  {
+    private static final long serialVersionUID;
+
+    static {
+      serialVersionUID = 1L;
+    }
+
+    private final Map<ASN1ObjectIdentifier, AsymmetricKeyInfoConverter> converters;
+
+    BouncyCastleSubset(
+      final Class<?>[] services,
+      final AlgorithmProvider... mappings)
+    {
+      super(NAME, BOUNCY_CASTLE_VERSION, "BouncyCastle algorithms used by mkcsr");
+      this.converters = new ConcurrentHashMap<>(8);
+      for (final AlgorithmProvider m : mappings) {
+        m.configure(this);
+      }
+
+      final Collection<Object> registered = this.values();
+      for (final Class<?> c : services) {
+        if (!registered.contains(c.getName())) {
+          throw new IllegalStateException(
+            "No mapping registers the service " + c.getName());
+        }
+      }
+    }
+
+    /**
+     * The BouncyCastle implementations read their EC and DH defaults from
+     * the full provider's configuration rather than from the provider that
+     * instantiated them, so this provider has nothing to configure. The
+     * standard parameters are accepted and ignored. Like the full provider,
+     * this provider does not reject parameters that it does not recognize.
+     */
+
+    @Override
+    public void setParameter(
+      final String name,
+      final Object value)
+    {
+      switch (name) {
+        case THREAD_LOCAL_EC_IMPLICITLY_CA:
+        case EC_IMPLICITLY_CA:
+        case THREAD_LOCAL_DH_DEFAULT_PARAMS:
+        case DH_DEFAULT_PARAMS:
+        case ACCEPTABLE_EC_CURVES:
+        case ADDITIONAL_EC_PARAMETERS:
+          LOG.debug("ignoring provider parameter {}", name);
+          break;
+        default:
+          LOG.warn("ignoring unrecognized provider parameter {}", name);
+          break;
+      }
+    }
+
+    @Override
+    public void addAlgorithm(
+      final String key,
+      final String value)
+    {
+      if (this.containsKey(key)) {
+        throw new IllegalStateException(
+          "Duplicate provider key (" + key + ")");
+      }
+      this.put(key, value);
+    }
+
+    @Override
+    public void addAlgorithm(
+      final String type,
+      final ASN1ObjectIdentifier oid,
+      final String class_name)
+    {
+      this.addAlgorithm(type + "." + oid, class_name);
+      this.addAlgorithm(type + ".OID." + oid, class_name);
+    }
+
+    @Override
+    public boolean hasAlgorithm(
+      final String type,
+      final String name)
+    {
+      return this.containsKey(type + "." + name)
+        || this.containsKey("Alg.Alias." + type + "." + name);
+    }
+
+    @Override
+    public void addKeyInfoConverter(
+      final ASN1ObjectIdentifier oid,
+      final AsymmetricKeyInfoConverter converter)
+    {
+      this.converters.put(oid, converter);
+    }
+
+    @Override
+    public AsymmetricKeyInfoConverter getKeyInfoConverter(
+      final ASN1ObjectIdentifier oid)
+    {
+      return this.converters.get(oid);
+    }
+
+    @Override
+    public void addAttributes(
+      final String key,
+      final Map<String, String> attributes)
+    {
+      for (final Map.Entry<String, String> e : attributes.entrySet()) {
+        final String name = key + " " + e.getKey();
+        if (this.containsKey(name)) {
+          throw new IllegalStateException(
+            "Duplicate provider attribute key (" + name + ")");
+        }
+        this.put(name, e.getValue());
+      }
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.Nullable;
+import com.io7m.junreachable.UnreachableCodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A strategy for obtaining the random number generators used for key
+ * generation, private key encryption salts and IVs, and signing.
+ *
+ * By default, each thread has its own instance of the platform's default
+ * algorithm. The algorithm can be chosen explicitly (such as
+ * {@code NativePRNGNonBlocking} or {@code DRBG}), a single instance can
+ * instead be shared by all threads, and instances can be reseeded after a
+ * given number of uses.
+ *
+ * Every instance is seeded when it is created, and reseeded, from a single
+ * process-wide seed source that reads the operating system's non-blocking
+ * entropy source where one exists. Algorithms such as {@code SHA1PRNG} and
+ * {@code DRBG} otherwise seed themselves on first use, which can block for
+ * a long time on a freshly booted machine, and which would otherwise be
+ * paid by the first key generated on each thread.
+ */
+
+final class CSRRandomness
+{
+  private static final Logger LOG;
+  private static final int SEED_SIZE;
+  private static final SecureRandom SEEDS;
+  private static final CSRRandomness STANDARD;
+  private static final CSRRandomness CONFIGURED;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRRandomness.class);
+    SEED_SIZE = 32;
+    SEEDS = createSeedSource();
+    try {
+      STANDARD = new CSRRandomness(null, false, 0L);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new UnreachableCodeException(e);
+    }
+    CONFIGURED = fromSystemProperties();
+  }
+
+  private final @Nullable String algorithm;
+  private final boolean shared;
+  private final long reseed_interval;
+  private final Object shared_lock;
+  private volatile @Nullable Source shared_source;
+  private final ThreadLocal<Source> thread_sources;
+
+  /**
+   * Construct a strategy.
+   *
+   * @param in_algorithm       The name of the random number generator
+   *                           algorithm, or {@code null} for the platform
+   *                           default
+   * @param in_shared          {@code true} if all threads should share a
+   *                           single instance
+   * @param in_reseed_interval The number of uses after which an instance is
+   *                           reseeded, or {@code 0} to never reseed
+   *
+   * @throws NoSuchAlgorithmException If the algorithm is unavailable
+   */
+
+  CSRRandomness(
+    final @Nullable String in_algorithm,
+    final boolean in_shared,
+    final long in_reseed_interval)
+    throws NoSuchAlgorithmException
+  {
+    if (in_reseed_interval < 0L) {
+      throw new IllegalArgumentException(
+        "Invalid reseed interval " + in_reseed_interval + " (must be non-negative)");
+    }
+
+    this.algorithm = in_algorithm;
+    this.shared = in_shared;
+    this.reseed_interval = in_reseed_interval;
+
+    /*
+     * Looking up the algorithm checks that it is available, so that
+     * creating instances later cannot fail. The unseeded instance is
+     * discarded; instances are only created and seeded when a thread (or,
+     * for a shared strategy, the first thread) asks for one.
+     */
+
+    if (in_algorithm != null) {
+      SecureRandom.getInstance(in_algorithm);
+    }
+
+    this.shared_lock = new Object();
+    this.thread_sources = ThreadLocal.withInitial(() -> new Source(this.create()));
+  }
+
+  private static SecureRandom createSeedSource()
+  {
+    try {
+      return SecureRandom.getInstance("NativePRNGNonBlocking");
+    } catch (final NoSuchAlgorithmException e) {
+      LOG.debug("non-blocking seed source is unavailable: {}", e.getMessage());
+      return new SecureRandom();
+    }
+  }
+
+  private static byte[] seed()
+  {
+    final byte[] seed = new byte[SEED_SIZE];
+    SEEDS.nextBytes(seed);
+    return seed;
+  }
+
+  /**
+   * @return The standard strategy: an instance of the platform's default
+   * algorithm per thread, never reseeded
+   */
+
+  static CSRRandomness standard()
+  {
+    return STANDARD;
+  }
+
+  /**
+   * @return The strategy configured by system properties when the package
+   * was initialized
+   *
+   * @see #fromSystemProperties()
+   */
+
+  static CSRRandomness configured()
+  {
+    return CONFIGURED;
+  }
+
+  /**
+   * Create a strategy from system properties. Any property that is not set
+   * takes its value from the {@link #standard()} strategy.
+   *
+   * <ul>
+   * <li>{@code com.io7m.mkcsr.random.algorithm}: The name of the random
+   * number generator algorithm, such as {@code NativePRNGNonBlocking},
+   * {@code DRBG}, or {@code SHA1PRNG}</li>
+   * <li>{@code com.io7m.mkcsr.random.shared}: {@code true} if all threads
+   * should share a single instance</li>
+   * <li>{@code com.io7m.mkcsr.random.reseedInterval}: The number of uses
+   * after which an instance is reseeded</li>
+   * </ul>
+   *
+   * @return A strategy
+   */
+
+  static CSRRandomness fromSystemProperties()
+  {
+    final String algorithm =
+      System.getProperty("com.io7m.mkcsr.random.algorithm");
+    final boolean shared =
+      Boolean.getBoolean("com.io7m.mkcsr.random.shared");
+    final long interval =
+      Long.getLong("com.io7m.mkcsr.random.reseedInterval", 0L).longValue();
+
+    try {
+      final CSRRandomness randomness =
+        new CSRRandomness(algorithm, shared, interval);
+      LOG.debug(
+        "random number generator: {} ({}, reseed interval {})",
+        algorithm == null ? "platform default" : algorithm,
+        shared ? "shared" : "per-thread",
+        Long.valueOf(interval));
+      return randomness;
+    } catch (final NoSuchAlgorithmException | IllegalArgumentException e) {
+      LOG.error("using default random number generator: {}", e.getMessage());
+      return STANDARD;
+    }
+  }
+
+  private SecureRandom create()
+  {
+    final SecureRandom random;
+    final String name = this.algorithm;
+    if (name == null) {
+      random = new SecureRandom();
+    } else {
+      try {
+        random = SecureRandom.getInstance(name);
+      } catch (final NoSuchAlgorithmException e) {
+        throw new UnreachableCodeException(e);
+      }
+    }
+    random.setSeed(seed());
+    return random;
+  }
+
+  private Source sharedSource()
+  {
+    Source source = this.shared_source;
+    if (source == null) {
+      synchronized (this.shared_lock) {
+        source = this.shared_source;
+        if (source == null) {
+          source = new Source(this.create());
+          this.shared_source = source;
+        }
+      }
+    }
+    return source;
+  }
+
+  /**
+   * Obtain a random number generator. Each call counts as a use of the
+   * returned instance for the purposes of reseeding, so callers that keep
+   * a reference to the instance should call this method each time they
+   * use it.
+   *
+   * @return The random number generator for the current thread
+   */
+
+  SecureRandom random()
+  {
+    final Source source;
+    if (this.shared) {
+      source = this.sharedSource();
+    } else {
+      source = this.thread_sources.get();
+    }
+    return source.use(this.reseed_interval);
+  }
+
+  private static final class Source
+  {
+    private final SecureRandom random;
+    private final AtomicLong uses;
+
+    Source(
+      final SecureRandom in_random)
+    {
+      this.random = in_random;
+      this.uses = new AtomicLong(0L);
+    }
+
+    SecureRandom use(
+      final long interval)
+    {
+      if (interval > 0L && this.uses.incrementAndGet() % interval == 0L) {
+        this.random.setSeed(seed());
+      }
+      return this.random;
+    }
+  }
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The long-running service.
+ *
+ * <ul>
+ * <li>{@code GET /metrics}: Metrics in Prometheus text format.</li>
+ * <li>{@code POST /csr}: Generate a key and CSR. See
+ * {@link CSRServiceRequest} for the request format.</li>
+ * </ul>
+ *
+ * All generation requests share one stage executor, so concurrent
+ * requests are pipelined exactly as entries in a batch are. At most a
+ * fixed number of requests are accepted at any one time; requests beyond
+ * that limit are refused immediately with {@code 429 Too Many Requests}
+ * rather than being queued without bound.
+ *
+ * Requests may only name an output directory if the service was given an
+ * output root, and the directory must then lie within that root; paths
+ * are resolved against the root, so relative paths are the norm. The
+ * check follows symbolic links, so a link inside the root cannot be used
+ * to reach a directory outside it.
+ *
+ * Requests that do not name an output directory have their files returned
+ * in the response. Those files are kept in memory for the duration of the
+ * request, and never touch the disk.
+ */
+
+final class CSRService implements AutoCloseable
+{
+  private static final Logger LOG;
+  private static final int MAXIMUM_BODY_SIZE;
+  private static final File INLINE_DIRECTORY;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRService.class);
+    MAXIMUM_BODY_SIZE = 65536;
+    INLINE_DIRECTORY = new File("inline");
+  }
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final CSRMetrics metrics;
+  private final CSRStageExecutor stages;
+  private final CSROutputSinkType sink;
+  private final CSRKeyPairSourceType keys;
+  private final CSRKeyEncryption encryption;
+  private final CSROutputLayout layout;
+  private final @Nullable Path output_root;
+  private final CSRProgressListenerType listener;
+  private final Semaphore permits;
+
+  private CSRService(
+    final HttpServer in_server,
+    final ExecutorService in_executor,
+    final CSRMetrics in_metrics,
+    final CSRStageExecutor in_stages,
+    final CSROutputSinkType in_sink,
+    final CSRKeyPairSourceType in_keys,
+    final CSRKeyEncryption in_encryption,
+    final CSROutputLayout in_layout,
+    final @Nullable Path in_output_root,
+    final int in_queue_limit)
+  {
+    this.server = NullCheck.notNull(in_server, "Server");
+    this.executor = NullCheck.notNull(in_executor, "Executor");
+    this.metrics = NullCheck.notNull(in_metrics, "Metrics");
+    this.stages = NullCheck.notNull(in_stages, "Stages");
+    this.sink = NullCheck.notNull(in_sink, "Sink");
+    this.keys = NullCheck.notNull(in_keys, "Keys");
+    this.encryption = NullCheck.notNull(in_encryption, "Encryption");
+    this.layout = NullCheck.notNull(in_layout, "Layout");
+    this.output_root = in_output_root;
+    this.listener =
+      new CSRProgressMulticaster(
+        Arrays.asList(in_metrics, new CSRProgressLogger()));
+    this.permits = new Semaphore(in_queue_limit);
+  }
+
+  /**
+   * Create and start a service.
+   *
+   * @param address     The address to which the HTTP server will bind
+   * @param metrics     The metrics
+   * @param stages      The stage executor shared by all requests
+   * @param sink        The destination of written files
+   * @param keys        The source of key pairs
+   * @param encryption  The private key encryption scheme
+   * @param layout      The layout of files in requested output directories
+   * @param output_root The existing directory within which requested
+   *                    output directories must lie, or {@code null} if
+   *                    requests may not name output directories
+   * @param queue_limit The maximum number of generation requests that may
+   *                    be in progress at any one time
+   *
+   * @return A running service
+   *
+   * @throws IOException If the server cannot be bound, or the output root
+   *                     does not exist
+   */
+
+  static CSRService create(
+    final InetSocketAddress address,
+    final CSRMetrics metrics,
+    final CSRStageExecutor stages,
+    final CSROutputSinkType sink,
+    final CSRKeyPairSourceType keys,
+    final CSRKeyEncryption encryption,
+    final CSROutputLayout layout,
+    final @Nullable Path output_root,
+    final int queue_limit)
+    throws IOException
+  {
+    if (queue_limit < 1) {
+      throw new IllegalArgumentException(
+        "Queue limit must be positive (received " + queue_limit + ")");
+    }
+
+    final Path real_root =
+      output_root == null ? null : output_root.toRealPath();
+
+    final HttpServer server = HttpServer.create(address, 0);
+    final ExecutorService executor =
+      Executors.newFixedThreadPool(4, r -> {
+        final Thread t = new Thread(r);
+        t.setName("com.io7m.mkcsr.http-" + t.getId());
+        t.setDaemon(true);
+        return t;
+      });
+
+    final CSRService service =
+      new CSRService(
+        server,
+        executor,
+        metrics,
+        stages,
+        sink,
+        keys,
+        encryption,
+        layout,
+        real_root,
+        queue_limit);
+    server.setExecutor(executor);
+    server.createContext("/metrics", service::serveMetrics);
+    server.createContext("/csr", service::serveGenerate);
+    server.start();
+    LOG.info(
+      "listening on {} (queue limit {})",
+      server.getAddress(),
+      Integer.valueOf(queue_limit));
+    return service;
+  }
+
+  /**
+   * @return The address to which the server is bound
+   */
+
+  InetSocketAddress getAddress()
+  {
+    return this.server.getAddress();
+  }
+
+  /**
+   * Resolve a requested output directory against an output root.
+   *
+   * The requested directory is first resolved lexically against the
+   * root. The nearest part of the result that exists is then resolved to
+   * its real path, following any symbolic links, and that too must lie
+   * within the root.
+   *
+   * @param root      The real path of the output root, or {@code null} if
+   *                  requests may not name output directories
+   * @param requested The requested output directory
+   *
+   * @return The resolved output directory
+   *
+   * @throws ValidationProblem If output directories are not permitted, or
+   *                           the directory does not lie within the root
+   */
+
+  static File resolveOutput(
+    final @Nullable Path root,
+    final File requested)
+    throws ValidationProblem
+  {
+    if (root == null) {
+      throw new ValidationProblem(
+        "This service does not accept output directories");
+    }
+
+    final Path resolved = root.resolve(requested.toPath()).normalize();
+    if (!resolved.startsWith(root)) {
+      throw notWithinRoot(requested);
+    }
+
+    final Path real;
+    try {
+      Path existing = resolved;
+      while (!Files.exists(existing, LinkOption.NOFOLLOW_LINKS)) {
+        existing = existing.getParent();
+      }
+      real = existing.toRealPath();
+    } catch (final IOException e) {
+      throw new ValidationProblem(
+        "Output directory '" + requested + "' cannot be resolved: "
+          + e.getMessage());
+    }
+    if (!real.startsWith(root)) {
+      throw notWithinRoot(requested);
+    }
+    return resolved.toFile();
+  }
+
+  private static ValidationProblem notWithinRoot(
+    final File requested)
+  {
+    return new ValidationProblem(
+      "Output directory '" + requested + "' is not within the output root");
+  }
+
+  static void respond(
+    final HttpExchange exchange,
+    final int status,
+    final String content_type,
+    final byte[] body)
+    throws IOException
+  {
+    exchange.getResponseHeaders().set("Content-Type", content_type);
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1L : (long) body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  static void respondText(
+    final HttpExchange exchange,
+    final int status,
+    final String text)
+    throws IOException
+  {
+    respond(
+      exchange,
+      status,
+      "text/plain; charset=utf-8",
+      (text + "\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static @Nullable String readBody(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    final byte[] buffer = new byte[4096];
+    try (InputStream in = exchange.getRequestBody()) {
+      while (true) {
+        final int r = in.read(buffer);
+        if (r < 0) {
+          break;
+        }
+        bytes.write(buffer, 0, r);
+        if (bytes.size() > MAXIMUM_BODY_SIZE) {
+          return null;
+        }
+      }
+    }
+    return bytes.toString(StandardCharsets.UTF_8.name());
+  }
+
+  private void serveMetrics(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.getResponseHeaders().set("Allow", "GET");
+        respondText(exchange, 405, "Method not allowed");
+        return;
+      }
+
+      respond(
+        exchange,
+        200,
+        "text/plain; version=0.0.4; charset=utf-8",
+        this.metrics.render().getBytes(StandardCharsets.UTF_8));
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void serveGenerate(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    boolean started = false;
+    try {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        exchange.getResponseHeaders().set("Allow", "POST");
+        respondText(exchange, 405, "Method not allowed");
+        return;
+      }
+
+      if (!this.permits.tryAcquire()) {
+        this.metrics.onOverloaded();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        respondText(exchange, 429, "Too many requests in progress");
+        return;
+      }
+
+      try {
+        started = this.start(exchange);
+      } finally {
+        if (!started) {
+          this.permits.release();
+        }
+      }
+    } finally {
+      if (!started) {
+        exchange.close();
+      }
+    }
+  }
+
+  /**
+   * Parse a request and start the pipeline for it.
+   *
+   * @return {@code true} if the pipeline was started, in which case the
+   * response is sent, and the permit released, when the pipeline completes
+   */
+
+  private boolean start(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    final String body = readBody(exchange);
+    if (body == null) {
+      respondText(exchange, 413, "Request body too large");
+      return false;
+    }
+
+    final CSRServiceRequest request;
+    final File requested_output;
+    try {
+      request = CSRServiceRequest.parse(body, CSRKeyAlgorithm.RSA_4096);
+      final File requested = request.getOutput();
+      if (requested != null) {
+        requested_output = resolveOutput(this.output_root, requested);
+      } else {
+        requested_output = null;
+      }
+    } catch (final ValidationProblem e) {
+      this.metrics.onRejected(e);
+      respondText(exchange, 400, e.getMessage());
+      return false;
+    }
+
+    final CSRDetails details;
+    final @Nullable CSROutputSinkMemory memory;
+    final CompletableFuture<CSRHash> future;
+    try {
+      if (requested_output != null) {
+        memory = null;
+        details =
+          new CSRDetails(
+            request.getUserName(),
+            request.getPassword(),
+            request.getAlgorithm(),
+            requested_output,
+            this.layout);
+      } else {
+        memory = new CSROutputSinkMemory();
+        details =
+          new CSRDetails(
+            request.getUserName(),
+            request.getPassword(),
+            request.getAlgorithm(),
+            INLINE_DIRECTORY,
+            CSROutputLayout.FLAT);
+      }
+
+      future =
+        CSRPipeline.executeAsync(
+          this.stages,
+          memory != null ? memory : this.sink,
+          details,
+          this.keys,
+          this.encryption,
+          this.listener);
+    } catch (final RuntimeException e) {
+      LOG.error("{}: could not start generation: ", request.getUserName(), e);
+      respondText(exchange, 500, "Generation failed: " + e.getMessage());
+      return false;
+    }
+
+    future.whenCompleteAsync(
+      (hash, x) -> this.finish(exchange, details, memory, hash, x),
+      this.executor);
+    return true;
+  }
+
+  private void finish(
+    final HttpExchange exchange,
+    final CSRDetails details,
+    final @Nullable CSROutputSinkMemory memory,
+    final @Nullable CSRHash hash,
+    final @Nullable Throwable x)
+  {
+    try {
+      if (hash != null) {
+        exchange.getResponseHeaders().set("X-CSR-SHA256", hash.toString());
+        if (memory != null) {
+          final ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+          bytes.write(NullCheck.notNull(memory.contents(details.getPrivateKeyFile())));
+          bytes.write(NullCheck.notNull(memory.contents(details.getCSRFile())));
+          respond(exchange, 200, "application/x-pem-file", bytes.toByteArray());
+        } else {
+          respondText(exchange, 200, hash.toString());
+        }
+      } else {
+        final Throwable cause = CSRStageExecutor.unwrap(x);
+        respondText(exchange, 500, "Generation failed: " + cause.getMessage());
+      }
+    } catch (final IOException e) {
+      LOG.error("{}: could not send response: {}", details.getUserName(), e.getMessage());
+    } finally {
+      exchange.close();
+      this.permits.release();
+      if (memory != null) {
+        memory.close();
+      }
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    this.server.stop(0);
+    this.executor.shutdown();
+  }
+}
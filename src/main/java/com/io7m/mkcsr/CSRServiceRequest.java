@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A request to the generation endpoint of the service, parsed from an
+ * {@code application/x-www-form-urlencoded} body.
+ *
+ * <ul>
+ * <li>{@code user}: The user name (required)</li>
+ * <li>{@code password}: The private key password (required)</li>
+ * <li>{@code algorithm}: The key algorithm (optional)</li>
+ * <li>{@code output}: The directory to which files are written, resolved
+ * against the service's output root. If omitted, the key and CSR are
+ * returned in the response instead.</li>
+ * </ul>
+ */
+
+final class CSRServiceRequest
+{
+  private final CSRUserName user_name;
+  private final CSRPassword password;
+  private final CSRKeyAlgorithm algorithm;
+  private final @Nullable File output;
+
+  private CSRServiceRequest(
+    final CSRUserName in_user_name,
+    final CSRPassword in_password,
+    final CSRKeyAlgorithm in_algorithm,
+    final @Nullable File in_output)
+  {
+    this.user_name = NullCheck.notNull(in_user_name, "User name");
+    this.password = NullCheck.notNull(in_password, "Password");
+    this.algorithm = NullCheck.notNull(in_algorithm, "Algorithm");
+    this.output = in_output;
+  }
+
+  /**
+   * Parse a request.
+   *
+   * @param body              The request body
+   * @param default_algorithm The algorithm used if none is specified
+   *
+   * @return A parsed request
+   *
+   * @throws ValidationProblem If the request is malformed or invalid
+   */
+
+  static CSRServiceRequest parse(
+    final String body,
+    final CSRKeyAlgorithm default_algorithm)
+    throws ValidationProblem
+  {
+    final Map<String, String> fields = parseForm(body);
+
+    final String user = fields.get("user");
+    if (user == null) {
+      throw new ValidationProblem("Missing required field 'user'");
+    }
+    final String pass = fields.get("password");
+    if (pass == null) {
+      throw new ValidationProblem("Missing required field 'password'");
+    }
+
+    final String algo = fields.get("algorithm");
+    final String output = fields.get("output");
+    final char[] pass_chars = pass.toCharArray();
+    return new CSRServiceRequest(
+      new CSRUserName(user),
+      new CSRPassword(pass_chars, pass_chars),
+      algo == null ? default_algorithm : CSRKeyAlgorithm.parse(algo),
+      output == null || output.isEmpty() ? null : new File(output));
+  }
+
+  private static Map<String, String> parseForm(
+    final String body)
+    throws ValidationProblem
+  {
+    final Map<String, String> fields = new HashMap<>(8);
+    if (body.isEmpty()) {
+      return fields;
+    }
+
+    try {
+      for (final String pair : body.split("&")) {
+        final int eq = pair.indexOf('=');
+        final String key;
+        final String value;
+        if (eq < 0) {
+          key = URLDecoder.decode(pair, "UTF-8");
+          value = "";
+        } else {
+          key = URLDecoder.decode(pair.substring(0, eq), "UTF-8");
+          value = URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+        }
+        if (fields.put(key, value) != null) {
+          throw new ValidationProblem("Duplicate field '" + key + "'");
+        }
+      }
+    } catch (final IllegalArgumentException e) {
+      throw new ValidationProblem("Malformed request body: " + e.getMessage());
+    } catch (final UnsupportedEncodingException e) {
+      throw new UnreachableCodeException(e);
+    }
+    return fields;
+  }
+
+  /**
+   * @return The user name
+   */
+
+  CSRUserName getUserName()
+  {
+    return this.user_name;
+  }
+
+  /**
+   * @return The private key password
+   */
+
+  CSRPassword getPassword()
+  {
+    return this.password;
+  }
+
+  /**
+   * @return The key algorithm
+   */
+
+  CSRKeyAlgorithm getAlgorithm()
+  {
+    return this.algorithm;
+  }
+
+  /**
+   * @return The output directory, or {@code null} if the results should be
+   * returned in the response
+   */
+
+  @Nullable
+  File getOutput()
+  {
+    return this.output;
+  }
+}
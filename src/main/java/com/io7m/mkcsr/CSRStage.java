@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+/**
+ * The stages of the pipeline.
+ */
+
+enum CSRStage
+{
+  /**
+   * A key pair is being generated or taken from a pool.
+   */
+
+  KEY_GENERATION("key generation"),
+
+  /**
+   * The private key is being encrypted.
+   */
+
+  KEY_ENCRYPTION("key encryption"),
+
+  /**
+   * The encrypted private key is being written.
+   */
+
+  KEY_WRITE("key write"),
+
+  /**
+   * The CSR is being signed.
+   */
+
+  CSR_SIGNING("CSR signing"),
+
+  /**
+   * The CSR is being hashed and written.
+   */
+
+  CSR_WRITE("CSR write"),
+
+  /**
+   * The CSR hash is being written.
+   */
+
+  HASH_WRITE("hash write"),
+
+  /**
+   * The written files are being synchronized to disk and renamed into
+   * place.
+   */
+
+  COMMIT("commit");
+
+  private final String description;
+
+  CSRStage(
+    final String in_description)
+  {
+    this.description = in_description;
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.description;
+  }
+}
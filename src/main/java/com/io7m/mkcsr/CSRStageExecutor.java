@@ -0,0 +1,310 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An executor for graphs of pipeline stages.
+ *
+ * Stages are either CPU-bound (key generation, encryption, signing) or
+ * I/O-bound (writing files), and each kind runs on its own pool of
+ * threads. Stages that do not depend on each other run concurrently, and
+ * because I/O stages never occupy CPU threads, the file writes for one
+ * request overlap with the key generation for the next.
+ *
+ * CPU stages always run on a fixed pool of platform threads. I/O stages
+ * run either on a fixed pool of platform threads or, on runtimes that
+ * support them, on virtual threads. Virtual threads allow very large
+ * numbers of slow writes (to network filesystems, for example) to be in
+ * flight at once without a corresponding number of platform threads.
+ *
+ * An executor that runs every stage on the calling thread, synchronously,
+ * is available via {@link #callingThread()}.
+ */
+
+final class CSRStageExecutor implements AutoCloseable
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRStageExecutor.class);
+  }
+
+  private final Executor cpu;
+  private final Executor io;
+  private final List<ExecutorService> owned;
+  private final boolean io_virtual;
+
+  private CSRStageExecutor(
+    final Executor in_cpu,
+    final Executor in_io,
+    final List<ExecutorService> in_owned,
+    final boolean in_io_virtual)
+  {
+    this.cpu = in_cpu;
+    this.io = in_io;
+    this.owned = in_owned;
+    this.io_virtual = in_io_virtual;
+  }
+
+  CSRStageExecutor(
+    final int in_cpu_threads,
+    final int in_io_threads)
+  {
+    if (in_io_threads < 1) {
+      throw new IllegalArgumentException(
+        "I/O thread count must be positive (received " + in_io_threads + ")");
+    }
+
+    final ExecutorService in_cpu = newCPUExecutor(in_cpu_threads);
+    final ExecutorService in_io =
+      Executors.newFixedThreadPool(
+        in_io_threads, new StageThreadFactory("io"));
+
+    this.cpu = in_cpu;
+    this.io = in_io;
+    this.owned = owned(in_cpu, in_io);
+    this.io_virtual = false;
+  }
+
+  private static ExecutorService newCPUExecutor(
+    final int threads)
+  {
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+        "CPU thread count must be positive (received " + threads + ")");
+    }
+    return Executors.newFixedThreadPool(threads, new StageThreadFactory("cpu"));
+  }
+
+  private static List<ExecutorService> owned(
+    final ExecutorService in_cpu,
+    final ExecutorService in_io)
+  {
+    final List<ExecutorService> services = new ArrayList<>(2);
+    services.add(in_cpu);
+    services.add(in_io);
+    return Collections.unmodifiableList(services);
+  }
+
+  /**
+   * Create a stage executor that runs CPU stages on a fixed pool of
+   * platform threads, and each I/O stage on a new virtual thread.
+   *
+   * @param in_cpu_threads The number of CPU threads
+   *
+   * @return A stage executor, or {@code null} if the current runtime does
+   * not support virtual threads
+   */
+
+  static @Nullable CSRStageExecutor createWithVirtualIO(
+    final int in_cpu_threads)
+  {
+    final ExecutorService in_io =
+      CSRVirtualThreads.newVirtualThreadPerTaskExecutor("com.io7m.mkcsr.io-");
+    if (in_io == null) {
+      return null;
+    }
+
+    final ExecutorService in_cpu = newCPUExecutor(in_cpu_threads);
+    return new CSRStageExecutor(in_cpu, in_io, owned(in_cpu, in_io), true);
+  }
+
+  /**
+   * Create a stage executor configured by system properties.
+   *
+   * <ul>
+   * <li>{@code com.io7m.mkcsr.stages.io}: {@code platform} (the default)
+   * to run I/O stages on a fixed pool of platform threads, or
+   * {@code virtual} to run them on virtual threads if the runtime
+   * supports them</li>
+   * <li>{@code com.io7m.mkcsr.stages.ioThreads}: The number of platform
+   * I/O threads (default: half the number of CPU threads, and at least
+   * two)</li>
+   * </ul>
+   *
+   * @param in_cpu_threads The number of CPU threads
+   *
+   * @return A stage executor
+   */
+
+  static CSRStageExecutor create(
+    final int in_cpu_threads)
+  {
+    final String mode =
+      System.getProperty("com.io7m.mkcsr.stages.io", "platform");
+
+    if ("virtual".equals(mode)) {
+      final CSRStageExecutor virtual = createWithVirtualIO(in_cpu_threads);
+      if (virtual != null) {
+        LOG.debug(
+          "{} CPU threads, virtual I/O threads",
+          Integer.valueOf(in_cpu_threads));
+        return virtual;
+      }
+      LOG.warn("virtual threads are unavailable; using platform I/O threads");
+    } else if (!"platform".equals(mode)) {
+      LOG.error(
+        "unrecognized I/O mode '{}' (must be 'platform' or 'virtual')", mode);
+    }
+
+    final int io_threads =
+      Integer.getInteger(
+        "com.io7m.mkcsr.stages.ioThreads",
+        Math.max(2, in_cpu_threads / 2)).intValue();
+
+    LOG.debug(
+      "{} CPU threads, {} platform I/O threads",
+      Integer.valueOf(in_cpu_threads),
+      Integer.valueOf(io_threads));
+    return new CSRStageExecutor(in_cpu_threads, io_threads);
+  }
+
+  /**
+   * @return {@code true} if I/O stages run on virtual threads
+   */
+
+  boolean isIOVirtual()
+  {
+    return this.io_virtual;
+  }
+
+  /**
+   * @return A stage executor that runs each stage on the thread that
+   * completed its input, which for a graph whose inputs are already
+   * complete is the calling thread
+   */
+
+  static CSRStageExecutor callingThread()
+  {
+    return new CSRStageExecutor(
+      Runnable::run, Runnable::run, Collections.emptyList(), false);
+  }
+
+  /**
+   * @return A stage executor with one CPU thread per available processor,
+   * configured by system properties as described in {@link #create(int)}
+   */
+
+  static CSRStageExecutor createDefault()
+  {
+    return create(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Run a CPU-bound stage when the given input completes.
+   *
+   * @param input The input stage
+   * @param stage The stage
+   * @param <A>   The type of input values
+   * @param <B>   The type of output values
+   *
+   * @return The completion of the stage
+   */
+
+  <A, B> CompletableFuture<B> cpu(
+    final CompletableFuture<A> input,
+    final CSRStageType<A, B> stage)
+  {
+    NullCheck.notNull(stage, "Stage");
+    return input.thenApplyAsync(stage::executeUnchecked, this.cpu);
+  }
+
+  /**
+   * Run an I/O-bound stage when the given input completes.
+   *
+   * @param input The input stage
+   * @param stage The stage
+   * @param <A>   The type of input values
+   * @param <B>   The type of output values
+   *
+   * @return The completion of the stage
+   */
+
+  <A, B> CompletableFuture<B> io(
+    final CompletableFuture<A> input,
+    final CSRStageType<A, B> stage)
+  {
+    NullCheck.notNull(stage, "Stage");
+    return input.thenApplyAsync(stage::executeUnchecked, this.io);
+  }
+
+  /**
+   * Unwrap the exception that caused a stage graph to fail.
+   *
+   * @param e The exception raised by the graph
+   *
+   * @return The exception raised by the failing stage
+   */
+
+  static Throwable unwrap(
+    final Throwable e)
+  {
+    Throwable x = e;
+    while (x instanceof CompletionException && x.getCause() != null) {
+      x = x.getCause();
+    }
+    return x;
+  }
+
+  @Override
+  public void close()
+  {
+    for (final ExecutorService e : this.owned) {
+      e.shutdown();
+    }
+  }
+
+  private static final class StageThreadFactory implements ThreadFactory
+  {
+    private final String kind;
+    private final AtomicInteger count;
+
+    StageThreadFactory(
+      final String in_kind)
+    {
+      this.kind = in_kind;
+      this.count = new AtomicInteger();
+    }
+
+    @Override
+    public Thread newThread(
+      final Runnable r)
+    {
+      final Thread t = new Thread(r);
+      t.setName(
+        "com.io7m.mkcsr." + this.kind + "-" + this.count.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * A single stage of the pipeline: a function from the result of a
+ * previous stage to a new result.
+ *
+ * @param <A> The type of input values
+ * @param <B> The type of output values
+ */
+
+@FunctionalInterface
+interface CSRStageType<A, B>
+{
+  /**
+   * Execute the stage.
+   *
+   * @param input The result of the previous stage
+   *
+   * @return The result of this stage
+   *
+   * @throws Exception On errors
+   */
+
+  B execute(A input)
+    throws Exception;
+
+  /**
+   * Execute the stage, wrapping any checked exception in a
+   * {@link CompletionException}.
+   *
+   * @param input The result of the previous stage
+   *
+   * @return The result of this stage
+   */
+
+  default B executeUnchecked(
+    final A input)
+  {
+    try {
+      return this.execute(input);
+    } catch (final RuntimeException e) {
+      throw e;
+    } catch (final Exception e) {
+      throw new CompletionException(e);
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.BERTags;
+import org.bouncycastle.asn1.DERPrintableString;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.bouncycastle.asn1.pkcs.Attribute;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A CSR template. A template holds the DER encodings of the parts of a
+ * PKCS#10 request that are the same for every request (the version, the
+ * fixed subject RDNs, the extension request attribute, and the signature
+ * algorithm identifier of each key algorithm), encoded once, so that
+ * building a CSR only requires splicing the encoded common name and public
+ * key between them, signing, and appending the signature. No ASN.1 objects
+ * are created for each request.
+ *
+ * Templates are cached by their fixed RDNs and extensions, so requests
+ * with the same subject and extension set share a template. Templates are
+ * immutable and may be shared between threads.
+ */
+
+final class CSRTemplate
+{
+  private static final int SEQUENCE;
+  private static final int SET;
+  private static final byte[] VERSION;
+  private static final byte[] COMMON_NAME;
+  private static final Map<CSRKeyAlgorithm, byte[]> SIGNATURE_ALGORITHMS;
+  private static final Map<ByteBuffer, CSRTemplate> TEMPLATES;
+  private static final CSRTemplate STANDARD;
+
+  static {
+    SEQUENCE = BERTags.CONSTRUCTED | BERTags.SEQUENCE;
+    SET = BERTags.CONSTRUCTED | BERTags.SET;
+
+    try {
+      VERSION = new ASN1Integer(0L).getEncoded(ASN1Encoding.DER);
+      COMMON_NAME = BCStyle.CN.getEncoded(ASN1Encoding.DER);
+
+      SIGNATURE_ALGORITHMS = new EnumMap<>(CSRKeyAlgorithm.class);
+      for (final CSRKeyAlgorithm a : CSRKeyAlgorithm.values()) {
+        SIGNATURE_ALGORITHMS.put(
+          a, a.getSignatureAlgorithm().getEncoded(ASN1Encoding.DER));
+      }
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    TEMPLATES = new ConcurrentHashMap<>(4);
+    STANDARD = createStandard();
+  }
+
+  private final byte[] fixed_rdns;
+  private final byte[] attributes;
+
+  private CSRTemplate(
+    final byte[] in_fixed_rdns,
+    final byte[] in_attributes)
+  {
+    this.fixed_rdns = NullCheck.notNull(in_fixed_rdns, "RDNs");
+    this.attributes = NullCheck.notNull(in_attributes, "Attributes");
+  }
+
+  /**
+   * Obtain a template for the given fixed RDNs and extensions, creating
+   * it if no template has been created for them.
+   *
+   * @param fixed_rdns The RDNs that follow the common name in the subject
+   * @param extensions The requested extensions
+   *
+   * @return A template
+   *
+   * @throws IOException If the RDNs or extensions cannot be encoded
+   */
+
+  static CSRTemplate of(
+    final RDN[] fixed_rdns,
+    final Extensions extensions)
+    throws IOException
+  {
+    NullCheck.notNull(fixed_rdns, "RDNs");
+    NullCheck.notNull(extensions, "Extensions");
+
+    final ByteArrayOutputStream rdns = new ByteArrayOutputStream(64);
+    for (final RDN r : fixed_rdns) {
+      r.encodeTo(rdns, ASN1Encoding.DER);
+    }
+
+    final byte[] attributes =
+      new DERTaggedObject(
+        false,
+        0,
+        new DERSet(
+          new Attribute(
+            PKCSObjectIdentifiers.pkcs_9_at_extensionRequest,
+            new DERSet(extensions))))
+        .getEncoded(ASN1Encoding.DER);
+
+    final byte[] fixed = rdns.toByteArray();
+    final ByteBuffer key = ByteBuffer.allocate(fixed.length + attributes.length);
+    key.put(fixed);
+    key.put(attributes);
+    key.flip();
+    return TEMPLATES.computeIfAbsent(key, k -> new CSRTemplate(fixed, attributes));
+  }
+
+  /**
+   * @return The standard template: {@code C=XA}, with a critical
+   * {@code basicConstraints} extension and a critical {@code keyUsage}
+   * extension permitting data encipherment
+   */
+
+  static CSRTemplate standard()
+  {
+    return STANDARD;
+  }
+
+  private static CSRTemplate createStandard()
+  {
+    try {
+      final ExtensionsGenerator extensions_generator =
+        new ExtensionsGenerator();
+
+      extensions_generator.addExtension(
+        Extension.basicConstraints,
+        true,
+        new BasicConstraints(true));
+      extensions_generator.addExtension(
+        Extension.keyUsage,
+        true,
+        new KeyUsage(KeyUsage.dataEncipherment));
+
+      final RDN[] rdns = new RDN[1];
+      rdns[0] = new RDN(BCStyle.C, new DERPrintableString("XA"));
+      return of(rdns, extensions_generator.generate());
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return The number of bytes needed to encode a tag and the given
+   * content length
+   */
+
+  private static int headerSize(
+    final int length)
+  {
+    if (length < 0x80) {
+      return 2;
+    }
+    int size = 2;
+    for (int remaining = length; remaining != 0; remaining >>>= 8) {
+      ++size;
+    }
+    return size;
+  }
+
+  private static int putHeader(
+    final byte[] out,
+    final int offset,
+    final int tag,
+    final int length)
+  {
+    out[offset] = (byte) tag;
+    if (length < 0x80) {
+      out[offset + 1] = (byte) length;
+      return offset + 2;
+    }
+
+    final int bytes = headerSize(length) - 2;
+    out[offset + 1] = (byte) (0x80 | bytes);
+    for (int index = 0; index < bytes; ++index) {
+      out[offset + 2 + index] = (byte) (length >>> ((bytes - 1 - index) * 8));
+    }
+    return offset + 2 + bytes;
+  }
+
+  private static int put(
+    final byte[] out,
+    final int offset,
+    final byte[] data)
+  {
+    System.arraycopy(data, 0, out, offset, data.length);
+    return offset + data.length;
+  }
+
+  /**
+   * Build and sign a CSR for the given user and key pair.
+   *
+   * @param user_name The user name, used as the subject common name
+   * @param algorithm The key algorithm
+   * @param keypair   The key pair
+   *
+   * @return The DER encoding of the signed CSR
+   *
+   * @throws OperatorCreationException If the signer cannot be created
+   * @throws IOException               If the request cannot be signed
+   */
+
+  byte[] build(
+    final CSRUserName user_name,
+    final CSRKeyAlgorithm algorithm,
+    final KeyPair keypair)
+    throws OperatorCreationException, IOException
+  {
+    final byte[] name = user_name.toString().getBytes(StandardCharsets.UTF_8);
+    final byte[] key = keypair.getPublic().getEncoded();
+
+    final int type_value = COMMON_NAME.length + headerSize(name.length) + name.length;
+    final int rdn = headerSize(type_value) + type_value;
+    final int subject = headerSize(rdn) + rdn + this.fixed_rdns.length;
+    final int info =
+      VERSION.length
+        + headerSize(subject) + subject
+        + key.length
+        + this.attributes.length;
+
+    final byte[] info_data = new byte[headerSize(info) + info];
+    int o = putHeader(info_data, 0, SEQUENCE, info);
+    o = put(info_data, o, VERSION);
+    o = putHeader(info_data, o, SEQUENCE, subject);
+    o = putHeader(info_data, o, SET, rdn);
+    o = putHeader(info_data, o, SEQUENCE, type_value);
+    o = put(info_data, o, COMMON_NAME);
+    o = putHeader(info_data, o, BERTags.UTF8_STRING, name.length);
+    o = put(info_data, o, name);
+    o = put(info_data, o, this.fixed_rdns);
+    o = put(info_data, o, key);
+    put(info_data, o, this.attributes);
+
+    final ContentSigner signer = algorithm.createSigner(keypair.getPrivate());
+    try (OutputStream out = signer.getOutputStream()) {
+      out.write(info_data);
+    }
+    final byte[] signature = signer.getSignature();
+
+    final byte[] signature_algorithm = SIGNATURE_ALGORITHMS.get(algorithm);
+    final int bits = signature.length + 1;
+    final int request =
+      info_data.length
+        + signature_algorithm.length
+        + headerSize(bits) + bits;
+
+    final byte[] data = new byte[headerSize(request) + request];
+    o = putHeader(data, 0, SEQUENCE, request);
+    o = put(data, o, info_data);
+    o = put(data, o, signature_algorithm);
+    o = putHeader(data, o, BERTags.BIT_STRING, bits);
+    data[o] = 0;
+    put(data, o + 1, signature);
+    return data;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.util.EnumMap;
+
+/**
+ * Per-thread instances of the stateful cryptographic objects used by the
+ * pipeline. None of these objects are safe to share between threads, and
+ * all of them are comparatively expensive to look up and create, so each
+ * thread keeps its own. Random number generators are obtained from the
+ * configured {@link CSRRandomness} strategy, and each request for a key
+ * pair generator or signer builder counts as a use of the random number
+ * generator that it holds.
+ */
+
+final class CSRThreadResources
+{
+  private static final ThreadLocal<MessageDigest> SHA256;
+  private static final ThreadLocal<EnumMap<CSRKeyAlgorithm, KeyPairGenerator>> GENERATORS;
+  private static final ThreadLocal<EnumMap<CSRKeyAlgorithm, JcaContentSignerBuilder>> SIGNERS;
+
+  static {
+    SHA256 = ThreadLocal.withInitial(() -> {
+      try {
+        return MessageDigest.getInstance("SHA-256");
+      } catch (final NoSuchAlgorithmException e) {
+        throw new UnreachableCodeException(e);
+      }
+    });
+    GENERATORS = ThreadLocal.withInitial(() -> new EnumMap<>(CSRKeyAlgorithm.class));
+    SIGNERS = ThreadLocal.withInitial(() -> new EnumMap<>(CSRKeyAlgorithm.class));
+  }
+
+  private CSRThreadResources()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * @return The current thread's SHA-256 digest, reset
+   */
+
+  static MessageDigest sha256()
+  {
+    final MessageDigest digest = SHA256.get();
+    digest.reset();
+    return digest;
+  }
+
+  /**
+   * @return The current thread's random number generator
+   *
+   * @see CSRRandomness#random()
+   */
+
+  static SecureRandom random()
+  {
+    return CSRRandomness.configured().random();
+  }
+
+  /**
+   * @param algorithm The key algorithm
+   *
+   * @return The current thread's initialized key pair generator for the
+   * given algorithm
+   *
+   * @throws NoSuchAlgorithmException If the algorithm is unavailable
+   * @throws NoSuchProviderException  If the BouncyCastle provider is unavailable
+   */
+
+  static KeyPairGenerator keyPairGenerator(
+    final CSRKeyAlgorithm algorithm)
+    throws NoSuchAlgorithmException, NoSuchProviderException
+  {
+    final SecureRandom random = random();
+    final EnumMap<CSRKeyAlgorithm, KeyPairGenerator> generators =
+      GENERATORS.get();
+    final KeyPairGenerator existing = generators.get(algorithm);
+    if (existing != null) {
+      return existing;
+    }
+
+    final KeyPairGenerator created =
+      algorithm.createKeyPairGenerator(random);
+    generators.put(algorithm, created);
+    return created;
+  }
+
+  /**
+   * @param algorithm The key algorithm
+   *
+   * @return The current thread's signer builder for the given algorithm
+   */
+
+  static JcaContentSignerBuilder signerBuilder(
+    final CSRKeyAlgorithm algorithm)
+  {
+    final SecureRandom random = random();
+    final EnumMap<CSRKeyAlgorithm, JcaContentSignerBuilder> signers =
+      SIGNERS.get();
+    final JcaContentSignerBuilder existing = signers.get(algorithm);
+    if (existing != null) {
+      return existing;
+    }
+
+    final JcaContentSignerBuilder created =
+      algorithm.createSignerBuilder(random);
+    signers.put(algorithm, created);
+    return created;
+  }
+}
@@ -16,8 +16,6 @@
 
 package com.io7m.mkcsr;
 
-import javax.swing.JTextField;
-
 final class CSRUserName
 {
   private final String actual;
@@ -26,29 +24,16 @@ final class CSRUserName
     final String name)
     throws ValidationProblem
   {
-    if (name.length() < 3) {
-      throw new ValidationProblem(
-        "Username must be at least three characters long");
-    }
-    if (!name.matches("[A-Za-z0-9_\\-]+")) {
-      throw new ValidationProblem(
-        "Username can only contain letters, digits, underscores, and hyphens");
-    }
-    this.actual = name;
+    this(name, CSRUserNamePolicy.configured());
   }
 
-  static CSRUserName fromField(
-    final JTextField field)
+  CSRUserName(
+    final String name,
+    final CSRUserNamePolicy policy)
     throws ValidationProblem
   {
-    try {
-      final CSRUserName un = new CSRUserName(field.getText());
-      TextFieldUtilities.fieldRestoreVisual(field);
-      return un;
-    } catch (final ValidationProblem e) {
-      TextFieldUtilities.fieldSetErrorVisual(field);
-      throw e;
-    }
+    policy.validate(name);
+    this.actual = name;
   }
 
   @Override
@@ -0,0 +1,338 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A policy that determines which strings are acceptable user names.
+ *
+ * A policy consists of a set of permitted ASCII characters, bounds on the
+ * length of names, and a set of reserved names that are refused
+ * regardless of case. Permitted characters are held in a lookup table,
+ * so checking a name is a single pass over its characters that allocates
+ * nothing unless the name is invalid.
+ *
+ * User names become file and directory names in the output directory, so
+ * regardless of the configured characters and reserved names, every
+ * policy refuses path separators, NUL, and the names {@code .} and
+ * {@code ..}.
+ */
+
+final class CSRUserNamePolicy
+{
+  private static final Logger LOG;
+  private static final CSRUserNamePolicy STANDARD;
+  private static final CSRUserNamePolicy CONFIGURED;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRUserNamePolicy.class);
+    STANDARD =
+      new CSRUserNamePolicy(
+        "A-Za-z0-9_-", 3, 64, Collections.emptySet());
+    CONFIGURED = fromSystemProperties();
+  }
+
+  private final String allowed_text;
+  private final boolean[] allowed;
+  private final int length_minimum;
+  private final int length_maximum;
+  private final Set<String> reserved;
+
+  /**
+   * Construct a policy.
+   *
+   * @param in_allowed        The permitted characters, as a sequence of
+   *                          single characters and ranges such as
+   *                          {@code a-z}; a {@code -} at the start or end
+   *                          is taken literally; path separators and NUL
+   *                          are never permitted
+   * @param in_length_minimum The minimum length of names
+   * @param in_length_maximum The maximum length of names
+   * @param in_reserved       The reserved names
+   */
+
+  CSRUserNamePolicy(
+    final String in_allowed,
+    final int in_length_minimum,
+    final int in_length_maximum,
+    final Set<String> in_reserved)
+  {
+    NullCheck.notNull(in_allowed, "Allowed");
+    NullCheck.notNull(in_reserved, "Reserved");
+
+    if (in_length_minimum < 1 || in_length_maximum < in_length_minimum) {
+      throw new IllegalArgumentException(
+        "Invalid length bounds [" + in_length_minimum + ", " + in_length_maximum + "]");
+    }
+
+    this.allowed_text = in_allowed;
+    this.allowed = parseAllowed(in_allowed);
+    this.length_minimum = in_length_minimum;
+    this.length_maximum = in_length_maximum;
+
+    final Set<String> names = new HashSet<>(in_reserved.size());
+    for (final String r : in_reserved) {
+      names.add(r.toLowerCase(Locale.ROOT));
+    }
+    this.reserved = Collections.unmodifiableSet(names);
+  }
+
+  private static boolean[] parseAllowed(
+    final String text)
+  {
+    final boolean[] table = new boolean[128];
+    int index = 0;
+    while (index < text.length()) {
+      final char lo = text.charAt(index);
+      final char hi;
+      if (index + 2 < text.length() && text.charAt(index + 1) == '-') {
+        hi = text.charAt(index + 2);
+        index += 3;
+      } else {
+        hi = lo;
+        ++index;
+      }
+
+      if (lo > hi || hi >= table.length) {
+        throw new IllegalArgumentException(
+          "Invalid character range '" + lo + "-" + hi + "' (must be ASCII)");
+      }
+      for (int c = lo; c <= hi; ++c) {
+        table[c] = true;
+      }
+    }
+
+    table['/'] = false;
+    table['\\'] = false;
+    table[0] = false;
+    return table;
+  }
+
+  /**
+   * @return The standard policy: letters, digits, underscores and hyphens,
+   * between 3 and 64 characters, with no reserved names
+   */
+
+  static CSRUserNamePolicy standard()
+  {
+    return STANDARD;
+  }
+
+  /**
+   * @return The policy configured by system properties when the package
+   * was initialized
+   *
+   * @see #fromSystemProperties()
+   */
+
+  static CSRUserNamePolicy configured()
+  {
+    return CONFIGURED;
+  }
+
+  /**
+   * Create a policy from system properties. Properties that are not set
+   * take their values from the {@link #standard()} policy.
+   *
+   * <ul>
+   * <li>{@code com.io7m.mkcsr.userName.allowed}: The permitted
+   * characters, such as {@code a-z0-9.-}</li>
+   * <li>{@code com.io7m.mkcsr.userName.minLength}: The minimum length</li>
+   * <li>{@code com.io7m.mkcsr.userName.maxLength}: The maximum length</li>
+   * <li>{@code com.io7m.mkcsr.userName.reserved}: A comma-separated list
+   * of reserved names</li>
+   * </ul>
+   *
+   * @return A policy
+   */
+
+  static CSRUserNamePolicy fromSystemProperties()
+  {
+    final String allowed_text =
+      System.getProperty("com.io7m.mkcsr.userName.allowed", STANDARD.allowed_text);
+    final int min =
+      Integer.getInteger(
+        "com.io7m.mkcsr.userName.minLength", STANDARD.length_minimum).intValue();
+    final int max =
+      Integer.getInteger(
+        "com.io7m.mkcsr.userName.maxLength", STANDARD.length_maximum).intValue();
+
+    final Set<String> reserved = new HashSet<>(8);
+    final String reserved_text =
+      System.getProperty("com.io7m.mkcsr.userName.reserved", "");
+    for (final String name : reserved_text.split(",")) {
+      final String trimmed = name.trim();
+      if (!trimmed.isEmpty()) {
+        reserved.add(trimmed);
+      }
+    }
+
+    try {
+      return new CSRUserNamePolicy(allowed_text, min, max, reserved);
+    } catch (final IllegalArgumentException e) {
+      LOG.error("using standard user name policy: {}", e.getMessage());
+      return STANDARD;
+    }
+  }
+
+  /**
+   * @param c A character
+   *
+   * @return {@code true} iff the character is permitted in names
+   */
+
+  boolean isAllowed(
+    final char c)
+  {
+    return c < this.allowed.length && this.allowed[c];
+  }
+
+  /**
+   * Check a name against the policy, reporting every violation.
+   *
+   * @param name The name
+   *
+   * @return A description of each violation, or an empty list if the name
+   * is acceptable
+   */
+
+  List<String> check(
+    final CharSequence name)
+  {
+    List<String> problems = Collections.emptyList();
+
+    final int length = name.length();
+    if (length < this.length_minimum) {
+      problems = add(
+        problems,
+        "Username must be at least " + this.length_minimum + " characters long");
+    } else if (length > this.length_maximum) {
+      problems = add(
+        problems,
+        "Username must be at most " + this.length_maximum + " characters long");
+    }
+
+    final StringBuilder invalid = this.findInvalid(name);
+    if (invalid != null) {
+      problems = add(problems, this.invalidCharacters(invalid));
+    }
+
+    if (isDotName(name)) {
+      problems = add(problems, "Username '" + name + "' is not permitted");
+    }
+
+    if (!this.reserved.isEmpty()
+      && this.reserved.contains(name.toString().toLowerCase(Locale.ROOT))) {
+      problems = add(problems, "Username '" + name + "' is reserved");
+    }
+
+    return problems;
+  }
+
+  private @Nullable StringBuilder findInvalid(
+    final CharSequence name)
+  {
+    StringBuilder invalid = null;
+    for (int index = 0; index < name.length(); ++index) {
+      final char c = name.charAt(index);
+      if (!this.isAllowed(c)) {
+        if (invalid == null) {
+          invalid = new StringBuilder(32);
+        }
+        if (invalid.indexOf(String.valueOf(c)) < 0) {
+          invalid.append(c);
+        }
+      }
+    }
+    return invalid;
+  }
+
+  private static boolean isDotName(
+    final CharSequence name)
+  {
+    final int length = name.length();
+    if (length == 1) {
+      return name.charAt(0) == '.';
+    }
+    if (length == 2) {
+      return name.charAt(0) == '.' && name.charAt(1) == '.';
+    }
+    return false;
+  }
+
+  private String invalidCharacters(
+    final CharSequence invalid)
+  {
+    final StringBuilder b = new StringBuilder(64);
+    b.append("Username contains characters that are not permitted (");
+    for (int index = 0; index < invalid.length(); ++index) {
+      if (index > 0) {
+        b.append(", ");
+      }
+      b.append('\'');
+      b.append(invalid.charAt(index));
+      b.append('\'');
+    }
+    b.append("); permitted characters are ");
+    b.append(this.allowed_text);
+    return b.toString();
+  }
+
+  private static List<String> add(
+    final List<String> problems,
+    final String problem)
+  {
+    final List<String> result;
+    if (problems.isEmpty()) {
+      result = new ArrayList<>(3);
+    } else {
+      result = problems;
+    }
+    result.add(problem);
+    return result;
+  }
+
+  /**
+   * Check a name against the policy.
+   *
+   * @param name The name
+   *
+   * @throws ValidationProblem If the name violates the policy; the message
+   *                           describes every violation
+   */
+
+  void validate(
+    final CharSequence name)
+    throws ValidationProblem
+  {
+    final List<String> problems = this.check(name);
+    if (!problems.isEmpty()) {
+      throw new ValidationProblem(String.join("; ", problems));
+    }
+  }
+}
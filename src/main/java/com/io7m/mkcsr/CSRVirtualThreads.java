@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.Nullable;
+import com.io7m.junreachable.UnreachableCodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads on runtimes that support them. The package
+ * targets Java 8, so the virtual thread API is reached reflectively.
+ */
+
+final class CSRVirtualThreads
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(CSRVirtualThreads.class);
+  }
+
+  private CSRVirtualThreads()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Create an executor that starts a new virtual thread for each task.
+   * Threads are named {@code prefix0}, {@code prefix1}, and so on.
+   *
+   * @param prefix The thread name prefix
+   *
+   * @return An executor, or {@code null} if the current runtime does not
+   * support virtual threads
+   */
+
+  static @Nullable ExecutorService newVirtualThreadPerTaskExecutor(
+    final String prefix)
+  {
+    try {
+      final Class<?> builder_class = Class.forName("java.lang.Thread$Builder");
+      final Method of_virtual = Thread.class.getMethod("ofVirtual");
+      final Method name =
+        builder_class.getMethod("name", String.class, long.class);
+      final Method factory = builder_class.getMethod("factory");
+      final Method per_task =
+        Executors.class.getMethod(
+          "newThreadPerTaskExecutor", ThreadFactory.class);
+
+      final Object builder =
+        name.invoke(of_virtual.invoke(null), prefix, Long.valueOf(0L));
+      final ThreadFactory threads = (ThreadFactory) factory.invoke(builder);
+      return (ExecutorService) per_task.invoke(null, threads);
+    } catch (final ClassNotFoundException | NoSuchMethodException e) {
+      LOG.debug("virtual threads are not supported: {}", e.getMessage());
+      return null;
+    } catch (final IllegalAccessException | InvocationTargetException e) {
+      /*
+       * On Java 19 and 20, virtual threads are a preview feature and
+       * the methods exist but throw unless preview features are enabled.
+       */
+
+      LOG.debug("virtual threads are not available: {}", e.getMessage());
+      return null;
+    }
+  }
+}
@@ -18,11 +18,11 @@ package com.io7m.mkcsr;
 
 import com.io7m.jnull.Nullable;
 import net.java.dev.designgridlayout.DesignGridLayout;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -39,7 +39,8 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
-import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The main program.
@@ -60,12 +61,28 @@ public final class MakeCSR extends JPanel
   private final JPasswordField password;
   private final JPasswordField password_confirm;
   private final JTextField common_name;
+  private final JComboBox<CSRKeyAlgorithm> algorithm;
   private final StatusPanel status;
+  private final CSRStageExecutor stages;
+  private final CSROutputSinkType sink;
+  private final CSRKeyPairSourceType keys;
+  private final CSRKeyEncryption encryption;
+  private final CSROutputLayout layout;
 
   private MakeCSR(
-    final JFrame window)
+    final JFrame window,
+    final CSRStageExecutor in_stages,
+    final CSROutputSinkType in_sink,
+    final CSRKeyPairSourceType in_keys,
+    final CSRKeyEncryption in_encryption,
+    final CSROutputLayout in_layout)
     throws IOException
   {
+    this.stages = in_stages;
+    this.sink = in_sink;
+    this.keys = in_keys;
+    this.encryption = in_encryption;
+    this.layout = in_layout;
     final DesignGridLayout dg = new DesignGridLayout(this);
 
     this.common_name = new JTextField(16);
@@ -74,6 +91,9 @@ public final class MakeCSR extends JPanel
     this.password_confirm = new JPasswordField(16);
     this.status = new StatusPanel();
 
+    this.algorithm = new JComboBox<>(CSRKeyAlgorithm.values());
+    this.algorithm.setSelectedItem(CSRKeyAlgorithm.RSA_4096);
+
     this.outdir = new JTextField(16);
     this.outdir.setEditable(false);
     this.outdir.setToolTipText("No directory selected");
@@ -124,6 +144,7 @@ public final class MakeCSR extends JPanel
       .grid()
       .add(new JLabel("Password (Confirm)"))
       .add(this.password_confirm, 2);
+    dg.row().grid().add(new JLabel("Key algorithm")).add(this.algorithm, 2);
     dg
       .row()
       .grid()
@@ -144,25 +165,39 @@ public final class MakeCSR extends JPanel
 
     try {
       final CSRPassword pass =
-        CSRPassword.fromPasswordFields(this.password, this.password_confirm);
+        TextFieldUtilities.getFieldsPasswordOrError(
+          this.password, this.password_confirm);
       final CSRUserName name1 =
-        CSRUserName.fromField(this.common_name);
+        TextFieldUtilities.getFieldUserNameOrError(this.common_name);
       final File file =
         new File(TextFieldUtilities.getFieldNonEmptyStringOrError(this.outdir));
+      final CSRKeyAlgorithm algo =
+        (CSRKeyAlgorithm) this.algorithm.getSelectedItem();
 
-      final CSRDetails d = new CSRDetails(name1, pass, file);
+      final CSRDetails d =
+        new CSRDetails(name1, pass, algo, file, this.layout);
       this.status.unsetError();
 
-      final boolean key_exists = d.getPrivateKeyFile().exists();
-      if (key_exists) {
+      final List<File> existing = new ArrayList<>(3);
+      for (final File f : new File[]{
+        d.getPrivateKeyFile(), d.getCSRFile(), d.getHashFile()}) {
+        if (f.exists()) {
+          existing.add(f);
+        }
+      }
+
+      if (!existing.isEmpty()) {
         final Object[] options = new String[2];
         options[0] = "Cancel";
         options[1] = "Overwrite";
 
         final StringBuilder message = new StringBuilder(128);
-        message.append("Private key ");
-        message.append(d.getPrivateKeyFile());
-        message.append(" already exists, overwrite?");
+        message.append("The following files already exist, overwrite?");
+        for (final File f : existing) {
+          message.append(System.lineSeparator());
+          message.append("  ");
+          message.append(f);
+        }
 
         final int r =
           JOptionPane.showOptionDialog(
@@ -180,7 +215,9 @@ public final class MakeCSR extends JPanel
         }
       }
 
-      final CSRProgressWindow progress = new CSRProgressWindow(d);
+      final CSRProgressWindow progress =
+        new CSRProgressWindow(
+          d, this.stages, this.sink, this.keys, this.encryption);
       progress.addWindowListener(new WindowAdapter()
       {
         @Override
@@ -192,6 +229,7 @@ public final class MakeCSR extends JPanel
       });
       progress.pack();
       progress.setVisible(true);
+      progress.start();
 
     } catch (final ValidationProblem x) {
       this.status.setError(x);
@@ -209,13 +247,16 @@ public final class MakeCSR extends JPanel
     // CHECKSTYLE:ON
     final String[] args)
   {
-    final BouncyCastleProvider provider = new BouncyCastleProvider();
-    Security.addProvider(provider);
+    final CSRStageExecutor stages = CSRStageExecutor.createDefault();
+    final CSROutputSinkType sink = CSROutputSinkFiles.createGrouping();
+    final CSRKeyPairSourceType keys = CSRKeyPool.fromSystemProperties();
+    final CSRKeyEncryption encryption = CSRKeyEncryption.fromSystemProperties();
+    final CSROutputLayout layout = CSROutputLayout.fromSystemProperties();
 
     SwingUtilities.invokeLater(() -> {
       try {
         final JFrame window = new JFrame("MakeCSR");
-        final MakeCSR csr = new MakeCSR(window);
+        final MakeCSR csr = new MakeCSR(window, stages, sink, keys, encryption, layout);
         window.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         window.setContentPane(csr);
         window.pack();
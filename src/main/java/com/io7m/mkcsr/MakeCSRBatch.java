@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.junreachable.UnreachableCodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * The headless batch program. Streams a manifest of user names and
+ * generates a key and CSR for each, in parallel. Progress is
+ * recorded in a journal so that an interrupted batch can be resumed by
+ * running it again. Alternatively, every file can be written into a single
+ * zip archive.
+ */
+
+public final class MakeCSRBatch
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(MakeCSRBatch.class);
+  }
+
+  private MakeCSRBatch()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Main function.
+   *
+   * @param args Command line arguments.
+   */
+
+  // CHECKSTYLE:OFF
+  public static void main(
+    // CHECKSTYLE:ON
+    final String[] args)
+  {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println(
+        "usage: manifest (output-directory | archive.zip) [key-algorithm]");
+      System.err.println();
+      System.err.println(
+        "  Manifests ending in .csv are read as CSV with a header naming the");
+      System.err.println(
+        "  name, algorithm, and password columns, manifests ending in .ndjson");
+      System.err.println(
+        "  or .jsonl as one JSON object per line with the same members, and");
+      System.err.println(
+        "  anything else as one name per line. Invalid lines are reported to");
+      System.err.println(
+        "  <manifest>.rejects.");
+      System.err.println();
+      System.err.println(
+        "  If the output ends in .zip, all files are written into a single zip");
+      System.err.println(
+        "  archive instead of a directory.");
+      System.err.println();
+      System.err.println(
+        "  The password used to encrypt all private keys is read twice from the");
+      System.err.println(
+        "  console or, if no console is available, from standard input.");
+      System.err.println();
+      System.err.print("  Key algorithms:");
+      for (final CSRKeyAlgorithm a : CSRKeyAlgorithm.values()) {
+        System.err.print(" " + a.name());
+      }
+      System.err.println(" (default " + CSRKeyAlgorithm.RSA_4096.name() + ")");
+      System.exit(1);
+      return;
+    }
+
+    final Path manifest = Paths.get(args[0]);
+    final File output = new File(args[1]);
+
+    try {
+      final CSRKeyAlgorithm algorithm;
+      if (args.length == 3) {
+        algorithm = CSRKeyAlgorithm.parse(args[2]);
+      } else {
+        algorithm = CSRKeyAlgorithm.RSA_4096;
+      }
+
+      final CSRPassword password = CSRPassword.readFromConsole();
+      final Path rejects = rejectsFile(manifest);
+
+      final int failures;
+      final long accepted;
+      final long rejected;
+      try (CSRManifestReader reader =
+             CSRManifestReader.open(
+               manifest,
+               rejects,
+               password,
+               algorithm,
+               output,
+               CSROutputLayout.fromSystemProperties(),
+               CSRNameIndex.maximumFromSystemProperties())) {
+        failures = execute(reader, output);
+        accepted = reader.getAccepted();
+        rejected = reader.getRejected();
+      }
+
+      if (rejected > 0L) {
+        LOG.error(
+          "{}: {} lines were rejected (see {})",
+          manifest,
+          Long.valueOf(rejected),
+          rejects);
+      }
+      if (failures > 0) {
+        LOG.error(
+          "{} of {} requests failed",
+          Integer.valueOf(failures),
+          Long.valueOf(accepted));
+      }
+      if (failures > 0 || rejected > 0L) {
+        System.exit(1);
+      }
+    } catch (final ValidationProblem e) {
+      LOG.error("{}", e.getMessage());
+      System.exit(1);
+    } catch (final IOException e) {
+      LOG.error("I/O error: {}", e.getMessage());
+      System.exit(1);
+    } catch (final UncheckedIOException e) {
+      LOG.error("I/O error: {}", e.getCause().getMessage());
+      System.exit(1);
+    }
+  }
+
+  private static Path rejectsFile(
+    final Path manifest)
+  {
+    final String name = System.getProperty("com.io7m.mkcsr.batch.rejects");
+    if (name != null) {
+      return Paths.get(name);
+    }
+    return manifest.resolveSibling(manifest.getFileName() + ".rejects");
+  }
+
+  private static int execute(
+    final Iterator<CSRDetails> requests,
+    final File output)
+    throws IOException
+  {
+    if (isArchive(output)) {
+      LOG.info("{}: archive output cannot be resumed; journal disabled", output);
+      try (CSROutputSinkZip sink =
+             CSROutputSinkZip.create(output.toPath(), output.toPath())) {
+        return execute(sink, null, requests);
+      }
+    }
+
+    Files.createDirectories(output.toPath());
+    try (CSROutputSinkFiles sink = CSROutputSinkFiles.createGrouping();
+         CSRJournal journal =
+           CSRJournal.open(
+             journalFile(output),
+             CSRNameIndex.maximumFromSystemProperties(),
+             CSRFileCommitter.syncFromSystemProperties())) {
+      final JournalFilter filter = new JournalFilter(journal, requests);
+      return execute(sink, journal, filter) + filter.refused;
+    }
+  }
+
+  private static Path journalFile(
+    final File output)
+  {
+    final String name = System.getProperty("com.io7m.mkcsr.batch.journal");
+    if (name != null) {
+      return Paths.get(name);
+    }
+    return output.toPath().resolve(".mkcsr-journal");
+  }
+
+  private static boolean isArchive(
+    final File output)
+  {
+    return output.getName().toLowerCase(Locale.ROOT).endsWith(".zip");
+  }
+
+  private static int execute(
+    final CSROutputSinkType sink,
+    final @Nullable CSRJournal journal,
+    final Iterator<CSRDetails> requests)
+  {
+    final List<CSRProgressListenerType> listeners = new ArrayList<>(2);
+    listeners.add(new CSRProgressLogger());
+    if (journal != null) {
+      listeners.add(journal);
+    }
+
+    final CSRBatch batch =
+      new CSRBatch(
+        CSRBatch.defaultThreadCount(),
+        sink,
+        new CSRKeyPairSourceDirect(),
+        CSRKeyEncryption.fromSystemProperties(),
+        new CSRProgressMulticaster(listeners));
+
+    final Reporter reporter = new Reporter();
+    batch.execute(requests, reporter);
+    return reporter.failures;
+  }
+
+  /**
+   * Prints each result as it is delivered.
+   */
+
+  private static final class Reporter implements Consumer<CSRBatchResult>
+  {
+    private int failures;
+
+    Reporter()
+    {
+      this.failures = 0;
+    }
+
+    @Override
+    public void accept(
+      final CSRBatchResult r)
+    {
+      final String name = r.getDetails().getUserName().toString();
+      if (r.isSuccessful()) {
+        System.out.printf("OK %s %s%n", name, r.getHash());
+      } else {
+        System.out.printf("FAILED %s %s%n", name, r.getFailure().getMessage());
+        ++this.failures;
+      }
+    }
+  }
+
+  /**
+   * Passes through only the requests that the journal does not show as
+   * committed by a previous run, printing the others as they are skipped.
+   * A request for a user name that a previous run committed with a
+   * different key algorithm is refused rather than overwriting the
+   * committed key.
+   */
+
+  private static final class JournalFilter implements Iterator<CSRDetails>
+  {
+    private final CSRJournal journal;
+    private final Iterator<CSRDetails> requests;
+    private @Nullable CSRDetails next;
+    private long skipped;
+    private int refused;
+
+    JournalFilter(
+      final CSRJournal in_journal,
+      final Iterator<CSRDetails> in_requests)
+    {
+      this.journal = in_journal;
+      this.requests = in_requests;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      while (this.next == null && this.requests.hasNext()) {
+        final CSRDetails d = this.requests.next();
+        final String previous = this.journal.committedHash(d);
+        if (previous != null) {
+          System.out.printf("SKIPPED %s %s%n", d.getUserName(), previous);
+          ++this.skipped;
+          continue;
+        }
+
+        final String algorithm = this.journal.committedAlgorithm(d);
+        if (algorithm != null) {
+          System.out.printf(
+            "FAILED %s already committed with %s by a previous run%n",
+            d.getUserName(),
+            algorithm);
+          ++this.refused;
+          continue;
+        }
+        this.next = d;
+      }
+
+      if (this.next == null && this.skipped > 0L) {
+        LOG.info(
+          "{}: skipped {} requests completed by a previous run",
+          this.journal.getFile(),
+          Long.valueOf(this.skipped));
+        this.skipped = 0L;
+      }
+      return this.next != null;
+    }
+
+    @Override
+    public CSRDetails next()
+    {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final CSRDetails d = NullCheck.notNull(this.next, "Next");
+      this.next = null;
+      return d;
+    }
+  }
+}
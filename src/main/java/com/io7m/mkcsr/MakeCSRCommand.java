@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import org.bouncycastle.operator.OperatorCreationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+
+/**
+ * The command-line program. Generates a single key and CSR, or verifies
+ * existing CSRs against their hash files, without loading any AWT or Swing
+ * classes. Nothing is initialized that the given command does not use:
+ * verifying CSRs never constructs the BouncyCastle provider, and errors
+ * are written directly to the standard error stream.
+ */
+
+public final class MakeCSRCommand
+{
+  private MakeCSRCommand()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Main function.
+   *
+   * @param args Command line arguments.
+   */
+
+  // CHECKSTYLE:OFF
+  public static void main(
+    // CHECKSTYLE:ON
+    final String[] args)
+  {
+    final String command = args.length > 0 ? args[0] : "";
+    switch (command) {
+      case "generate": {
+        if (args.length == 3 || args.length == 4) {
+          System.exit(generate(args));
+          return;
+        }
+        break;
+      }
+      case "verify": {
+        if (args.length > 1) {
+          System.exit(verify(args));
+          return;
+        }
+        break;
+      }
+      case "version": {
+        if (args.length == 1) {
+          System.out.println(Version.get());
+          return;
+        }
+        break;
+      }
+      default: {
+        break;
+      }
+    }
+
+    usage();
+    System.exit(1);
+  }
+
+  private static void usage()
+  {
+    System.err.println("usage: generate user-name output-directory [key-algorithm]");
+    System.err.println("     | verify csr-file ...");
+    System.err.println("     | version");
+    System.err.println();
+    System.err.println(
+      "  generate: Generate a key and CSR for the given user name. The");
+    System.err.println(
+      "  password used to encrypt the private key is read twice from the");
+    System.err.println(
+      "  console or, if no console is available, from standard input. The");
+    System.err.println(
+      "  hash of the CSR is printed on success.");
+    System.err.println();
+    System.err.println(
+      "  verify: Check each CSR against the .sha256 file beside it.");
+    System.err.println();
+    System.err.print("  Key algorithms:");
+    for (final CSRKeyAlgorithm a : CSRKeyAlgorithm.values()) {
+      System.err.print(" " + a.name());
+    }
+    System.err.println(" (default " + CSRKeyAlgorithm.RSA_4096.name() + ")");
+  }
+
+  private static int generate(
+    final String[] args)
+  {
+    try {
+      final CSRUserName name = new CSRUserName(args[1]);
+      final CSRKeyAlgorithm algorithm;
+      if (args.length == 4) {
+        algorithm = CSRKeyAlgorithm.parse(args[3]);
+      } else {
+        algorithm = CSRKeyAlgorithm.RSA_4096;
+      }
+
+      final CSRPassword password = CSRPassword.readFromConsole();
+      final CSRDetails details =
+        new CSRDetails(
+          name,
+          password,
+          algorithm,
+          new File(args[2]),
+          CSROutputLayout.fromSystemProperties());
+
+      System.out.println(
+        generate(details, CSRKeyEncryption.fromSystemProperties()));
+      return 0;
+    } catch (final ValidationProblem e) {
+      System.err.println("mkcsr: " + e.getMessage());
+      return 1;
+    } catch (final IOException e) {
+      System.err.println("mkcsr: I/O error: " + e.getMessage());
+      return 1;
+    } catch (final GeneralSecurityException | OperatorCreationException e) {
+      System.err.println("mkcsr: cryptographic error: " + e.getMessage());
+      return 1;
+    }
+  }
+
+  /**
+   * Generate a key and CSR, printing progress messages to the standard
+   * error stream.
+   *
+   * @param details    The request
+   * @param encryption The private key encryption scheme
+   *
+   * @return The hash of the written CSR
+   *
+   * @throws GeneralSecurityException  If a cryptographic algorithm is
+   *                                   unavailable
+   * @throws OperatorCreationException If the key cannot be encrypted or the
+   *                                   CSR cannot be signed
+   * @throws IOException               On I/O errors
+   */
+
+  static CSRHash generate(
+    final CSRDetails details,
+    final CSRKeyEncryption encryption)
+    throws GeneralSecurityException, OperatorCreationException, IOException
+  {
+    return CSRPipeline.execute(
+      details,
+      new CSRKeyPairSourceDirect(),
+      encryption,
+      new Messages());
+  }
+
+  /**
+   * Verify a CSR against the {@code .sha256} file beside it.
+   *
+   * @param csr The CSR file
+   *
+   * @return {@code true} iff the hash file matches the CSR
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static boolean verify(
+    final Path csr)
+    throws IOException
+  {
+    return CSRHashVerification.verify(csr, hashFileFor(csr));
+  }
+
+  private static int verify(
+    final String[] args)
+  {
+    int failures = 0;
+    for (int index = 1; index < args.length; ++index) {
+      final Path csr = Paths.get(args[index]);
+      try {
+        if (verify(csr)) {
+          System.out.printf("OK %s%n", csr);
+        } else {
+          System.out.printf("MISMATCH %s%n", csr);
+          ++failures;
+        }
+      } catch (final IOException e) {
+        System.out.printf("FAILED %s %s%n", csr, e.getMessage());
+        ++failures;
+      }
+    }
+    return failures > 0 ? 1 : 0;
+  }
+
+  private static Path hashFileFor(
+    final Path csr)
+  {
+    final String name = csr.getFileName().toString();
+    final String base;
+    if (name.endsWith(".csr")) {
+      base = name.substring(0, name.length() - ".csr".length());
+    } else {
+      base = name;
+    }
+    return csr.resolveSibling(base + ".sha256");
+  }
+
+  /**
+   * Prints the pipeline's informational messages.
+   */
+
+  private static final class Messages implements CSRProgressListenerType
+  {
+    Messages()
+    {
+
+    }
+
+    @Override
+    public void onMessage(
+      final CSRDetails details,
+      final String message)
+    {
+      System.err.println(message);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+
+/**
+ * The service program. Runs until killed, accepting generation requests
+ * and exposing metrics over HTTP on the loopback interface.
+ */
+
+public final class MakeCSRService
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(MakeCSRService.class);
+  }
+
+  private MakeCSRService()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Main function.
+   *
+   * @param args Command line arguments.
+   */
+
+  // CHECKSTYLE:OFF
+  public static void main(
+    // CHECKSTYLE:ON
+    final String[] args)
+  {
+    if (args.length > 1) {
+      System.err.println("usage: [port]");
+      System.err.println();
+      System.err.println(
+        "  Listens on http://127.0.0.1:<port>/ (default port 8339).");
+      System.err.println();
+      System.err.println("  POST /csr     Generate a key and CSR");
+      System.err.println("  GET /metrics  Metrics in Prometheus text format");
+      System.exit(1);
+      return;
+    }
+
+    final int port;
+    try {
+      port = args.length == 1 ? Integer.parseInt(args[0]) : 8339;
+    } catch (final NumberFormatException e) {
+      LOG.error("invalid port: {}", args[0]);
+      System.exit(1);
+      return;
+    }
+
+    final int queue_limit =
+      Integer.getInteger(
+        "com.io7m.mkcsr.service.queueLimit",
+        4 * Runtime.getRuntime().availableProcessors()).intValue();
+
+    final CSRMetrics metrics = new CSRMetrics();
+    final CSRStageExecutor stages = CSRStageExecutor.createDefault();
+    final CSROutputSinkFiles sink = CSROutputSinkFiles.createGrouping();
+    final CSRKeyPairSourceType keys = CSRKeyPool.fromSystemProperties();
+    final CSRKeyEncryption encryption = CSRKeyEncryption.fromSystemProperties();
+    final String output_root = System.getProperty("com.io7m.mkcsr.service.outputRoot");
+
+    try {
+      final CSRService service =
+        CSRService.create(
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+          metrics,
+          stages,
+          sink,
+          keys,
+          encryption,
+          CSROutputLayout.fromSystemProperties(),
+          output_root == null ? null : Paths.get(output_root),
+          queue_limit);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        service.close();
+        stages.close();
+        sink.close();
+      }));
+    } catch (final IOException e) {
+      LOG.error("could not start service: {}", e.getMessage());
+      System.exit(1);
+    }
+  }
+}
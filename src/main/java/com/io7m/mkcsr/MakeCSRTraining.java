@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import org.bouncycastle.operator.OperatorCreationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+
+/**
+ * A training run for class data sharing and minimized packaging. Generates
+ * and verifies a key and CSR for every key algorithm, and for every private
+ * key encryption scheme, in a temporary directory, using the same code
+ * paths as {@link MakeCSRCommand}. A JVM started with
+ * {@code -XX:DumpLoadedClassList} therefore records every class that a
+ * real invocation loads, and a run against a minimized jar fails if the
+ * jar is missing a class that an invocation needs. The directory is
+ * deleted afterwards.
+ */
+
+public final class MakeCSRTraining
+{
+  private MakeCSRTraining()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Main function.
+   *
+   * @param args Command line arguments.
+   *
+   * @throws Exception On errors
+   */
+
+  // CHECKSTYLE:OFF
+  public static void main(
+    // CHECKSTYLE:ON
+    final String[] args)
+    throws Exception
+  {
+    System.out.println(Version.get());
+
+    final Path directory = Files.createTempDirectory("mkcsr-training");
+    try {
+      final char[] pass = "mkcsr-training".toCharArray();
+      for (final CSRKeyAlgorithm algorithm : CSRKeyAlgorithm.values()) {
+        train(
+          directory.resolve(algorithm.name()),
+          new CSRPassword(pass, pass.clone()),
+          algorithm,
+          CSRKeyEncryption.fromSystemProperties());
+      }
+      for (final CSRKeyEncryptionScheme scheme : CSRKeyEncryptionScheme.values()) {
+        train(
+          directory.resolve(scheme.name()),
+          new CSRPassword(pass, pass.clone()),
+          CSRKeyAlgorithm.ED25519,
+          new CSRKeyEncryption(scheme, scheme.getMinimumCost()));
+      }
+    } finally {
+      delete(directory.toFile());
+    }
+  }
+
+  private static void train(
+    final Path directory,
+    final CSRPassword password,
+    final CSRKeyAlgorithm algorithm,
+    final CSRKeyEncryption encryption)
+    throws ValidationProblem,
+    GeneralSecurityException,
+    OperatorCreationException,
+    IOException
+  {
+    final CSRDetails details =
+      new CSRDetails(
+        new CSRUserName("training"),
+        password,
+        algorithm,
+        directory.toFile(),
+        CSROutputLayout.fromSystemProperties());
+
+    final CSRHash hash = MakeCSRCommand.generate(details, encryption);
+    if (!MakeCSRCommand.verify(details.getCSRFile().toPath())) {
+      throw new IllegalStateException(
+        "Training CSR in " + directory + " did not verify");
+    }
+    System.out.printf("%s %s%n", directory.getFileName(), hash);
+  }
+
+  private static void delete(
+    final File file)
+  {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (final File child : children) {
+        delete(child);
+      }
+    }
+    if (!file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+}
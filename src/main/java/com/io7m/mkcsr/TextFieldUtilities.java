@@ -19,6 +19,7 @@ package com.io7m.mkcsr;
 import com.io7m.junreachable.UnreachableCodeException;
 
 import javax.swing.BorderFactory;
+import javax.swing.JPasswordField;
 import javax.swing.JTextField;
 import javax.swing.border.Border;
 import java.awt.Color;
@@ -65,4 +66,36 @@ final class TextFieldUtilities
     fieldRestoreVisual(field);
     return s;
   }
+
+  static CSRUserName getFieldUserNameOrError(
+    final JTextField field)
+    throws ValidationProblem
+  {
+    try {
+      final CSRUserName un = new CSRUserName(field.getText());
+      fieldRestoreVisual(field);
+      return un;
+    } catch (final ValidationProblem e) {
+      fieldSetErrorVisual(field);
+      throw e;
+    }
+  }
+
+  static CSRPassword getFieldsPasswordOrError(
+    final JPasswordField pass,
+    final JPasswordField confirm)
+    throws ValidationProblem
+  {
+    try {
+      final CSRPassword p =
+        new CSRPassword(pass.getPassword(), confirm.getPassword());
+      fieldRestoreVisual(pass);
+      fieldRestoreVisual(confirm);
+      return p;
+    } catch (final ValidationProblem e) {
+      fieldSetErrorVisual(pass);
+      fieldSetErrorVisual(confirm);
+      throw e;
+    }
+  }
 }
@@ -0,0 +1,27 @@
+#!/bin/sh
+#
+# Run mkcsr using the class data sharing archive built alongside this
+# script by the appcds profile. The archive can only be used by the JDK
+# that built it, and only while the jar beside it is unchanged; in any
+# other case, the JVM ignores the archive and starts normally.
+#
+# The main class defaults to the command-line program, and can be changed
+# by setting MKCSR_MAIN (for example, to com.io7m.mkcsr.MakeCSRBatch).
+#
+
+MKCSR_HOME=$(cd "$(dirname "$0")" && pwd) || exit 1
+
+if [ -n "${JAVA_HOME}" ]
+then
+  JAVA="${JAVA_HOME}/bin/java"
+else
+  JAVA="java"
+fi
+
+exec "${JAVA}" \
+  -XX:+IgnoreUnrecognizedVMOptions \
+  -Xshare:auto \
+  -XX:SharedArchiveFile="${MKCSR_HOME}/mkcsr.jsa" \
+  -cp "${MKCSR_HOME}/@project.build.finalName@-main.jar" \
+  "${MKCSR_MAIN:-com.io7m.mkcsr.MakeCSRCommand}" \
+  "$@"
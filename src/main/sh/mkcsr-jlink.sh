@@ -0,0 +1,15 @@
+#!/bin/sh
+#
+# Run mkcsr using the minimized jar and the runtime image built alongside
+# this script by the jlink profile. No separately installed JDK is needed.
+#
+# The main class defaults to the command-line program, and can be changed
+# by setting MKCSR_MAIN (for example, to com.io7m.mkcsr.MakeCSRBatch).
+#
+
+MKCSR_HOME=$(cd "$(dirname "$0")" && pwd) || exit 1
+
+exec "${MKCSR_HOME}/runtime/bin/java" \
+  -cp "${MKCSR_HOME}/@project.build.finalName@-minimal.jar" \
+  "${MKCSR_MAIN:-com.io7m.mkcsr.MakeCSRCommand}" \
+  "$@"
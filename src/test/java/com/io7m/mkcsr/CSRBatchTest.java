@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRBatchTest
+{
+  private static List<CSRBatchResult> run(
+    final List<CSRDetails> requests)
+    throws Exception
+  {
+    final List<CSRBatchResult> results = new ArrayList<>(requests.size());
+    try (CSROutputSinkFiles sink = CSROutputSinkFiles.createGrouping()) {
+      final CSRBatch batch =
+        new CSRBatch(
+          2,
+          sink,
+          new CSRKeyPairSourceDirect(),
+          CSRKeyEncryption.defaults(),
+          CSRTestSupport.listener());
+      batch.execute(requests.iterator(), results::add);
+    }
+    return results;
+  }
+
+  @Test
+  public void testResultsInOrder(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final List<CSRDetails> requests = new ArrayList<>(8);
+    for (int index = 0; index < 8; ++index) {
+      requests.add(
+        CSRTestSupport.details(
+          directory.toFile(), "user" + index, CSRKeyAlgorithm.ED25519));
+    }
+
+    final List<CSRBatchResult> results = run(requests);
+    assertEquals(requests.size(), results.size());
+    for (int index = 0; index < requests.size(); ++index) {
+      final CSRBatchResult r = results.get(index);
+      assertTrue(r.isSuccessful());
+      assertEquals(requests.get(index), r.getDetails());
+      assertTrue(r.getDetails().getCSRFile().isFile());
+      assertTrue(r.getDetails().getPrivateKeyFile().isFile());
+      assertTrue(r.getDetails().getHashFile().isFile());
+    }
+  }
+
+  @Test
+  public void testFailureDoesNotStopBatch(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final File blocked = directory.resolve("blocked").toFile();
+    Files.createFile(blocked.toPath());
+
+    final List<CSRDetails> requests = new ArrayList<>(3);
+    requests.add(
+      CSRTestSupport.details(directory.toFile(), "alice", CSRKeyAlgorithm.ED25519));
+    requests.add(
+      CSRTestSupport.details(blocked, "bob", CSRKeyAlgorithm.ED25519));
+    requests.add(
+      CSRTestSupport.details(directory.toFile(), "carol", CSRKeyAlgorithm.ED25519));
+
+    final List<CSRBatchResult> results = run(requests);
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).isSuccessful());
+    assertFalse(results.get(1).isSuccessful());
+    assertTrue(results.get(2).isSuccessful());
+    assertEquals(requests.get(1), results.get(1).getDetails());
+    assertFalse(requests.get(1).getCSRFile().exists());
+  }
+}
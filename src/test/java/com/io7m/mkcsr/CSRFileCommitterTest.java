@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRFileCommitterTest
+{
+  @TempDir
+  Path directory;
+
+  private static byte[] bytes(
+    final String text)
+  {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private long countTemporaryFiles()
+    throws Exception
+  {
+    try (Stream<Path> s = Files.list(this.directory)) {
+      return s.filter(p -> p.getFileName().toString().startsWith("."))
+        .count();
+    }
+  }
+
+  @Test
+  public void testCommit()
+    throws Exception
+  {
+    final Path a = this.directory.resolve("a");
+    final List<CSRPendingFile> files = new ArrayList<>(1);
+    files.add(CSRPendingFile.write(a.toFile(), bytes("A")));
+
+    try (CSRFileCommitter c = CSRFileCommitter.createInline(true)) {
+      c.commit(files).get();
+    }
+
+    assertArrayEquals(bytes("A"), Files.readAllBytes(a));
+    assertEquals(0L, this.countTemporaryFiles());
+  }
+
+  @Test
+  public void testFailedRenameLeavesEarlierFiles()
+    throws Exception
+  {
+    final Path a = this.directory.resolve("a");
+    final Path b = this.directory.resolve("b");
+    final Path c = this.directory.resolve("c");
+
+    final List<CSRPendingFile> files = new ArrayList<>(3);
+    files.add(CSRPendingFile.write(a.toFile(), bytes("A")));
+    files.add(CSRPendingFile.write(b.toFile(), bytes("B")));
+    files.add(CSRPendingFile.write(c.toFile(), bytes("C")));
+
+    /*
+     * A non-empty directory cannot be replaced by a file, so the rename of
+     * the second file fails.
+     */
+
+    Files.createDirectory(b);
+    Files.write(b.resolve("x"), bytes("X"));
+
+    final CompletableFuture<Void> future;
+    try (CSRFileCommitter committer = CSRFileCommitter.createInline(true)) {
+      future = committer.commit(files);
+    }
+    assertThrows(ExecutionException.class, future::get);
+
+    for (final CSRPendingFile f : files) {
+      f.discard();
+    }
+
+    assertArrayEquals(bytes("A"), Files.readAllBytes(a));
+    assertTrue(Files.isDirectory(b));
+    assertFalse(Files.exists(c));
+    assertEquals(0L, this.countTemporaryFiles());
+  }
+
+  @Test
+  public void testRuntimeFailureDoesNotStopCommitter()
+    throws Exception
+  {
+    final Path a = this.directory.resolve("a");
+
+    try (CSRFileCommitter c = CSRFileCommitter.createGrouping(true)) {
+      final CompletableFuture<Void> broken =
+        c.commit(Collections.singletonList(null));
+      final ExecutionException e =
+        assertThrows(ExecutionException.class, () -> broken.get(10L, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof NullPointerException);
+
+      final List<CSRPendingFile> files = new ArrayList<>(1);
+      files.add(CSRPendingFile.write(a.toFile(), bytes("A")));
+      c.commit(files).get(10L, TimeUnit.SECONDS);
+    }
+
+    assertArrayEquals(bytes("A"), Files.readAllBytes(a));
+  }
+
+  @Test
+  public void testSlowDependentsDoNotDelayCommits()
+    throws Exception
+  {
+    final Thread test = Thread.currentThread();
+    final CountDownLatch release = new CountDownLatch(1);
+
+    try (CSRFileCommitter c = CSRFileCommitter.createGrouping(false)) {
+      final List<CSRPendingFile> first = new ArrayList<>(1);
+      first.add(CSRPendingFile.write(this.directory.resolve("a").toFile(), bytes("A")));
+      final CompletableFuture<Void> blocked =
+        c.commit(first).thenRun(() -> {
+          if (Thread.currentThread() != test) {
+            try {
+              release.await(30L, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        });
+
+      final List<CSRPendingFile> second = new ArrayList<>(1);
+      second.add(CSRPendingFile.write(this.directory.resolve("b").toFile(), bytes("B")));
+      c.commit(second).get(10L, TimeUnit.SECONDS);
+
+      release.countDown();
+      blocked.get(10L, TimeUnit.SECONDS);
+    }
+
+    assertEquals(0L, this.countTemporaryFiles());
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class CSRHashTest
+{
+  private static final String ABC_SHA256 =
+    "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+  private static String ascii(
+    final byte[] data)
+  {
+    return StandardCharsets.US_ASCII.decode(ByteBuffer.wrap(data)).toString();
+  }
+
+  @Test
+  public void testToString()
+  {
+    final CSRHash hash =
+      CSRHash.sha256("abc".getBytes(StandardCharsets.US_ASCII));
+    assertEquals(32, hash.size());
+    assertEquals(ABC_SHA256, hash.toString());
+  }
+
+  @Test
+  public void testEncodeASCIIOffset()
+  {
+    final CSRHash hash =
+      CSRHash.sha256("abc".getBytes(StandardCharsets.US_ASCII));
+    final byte[] out = new byte[2 + 64 + 2];
+    out[0] = 'x';
+    out[1] = 'y';
+    out[66] = 'z';
+    out[67] = 'w';
+    hash.encodeASCII(out, 2);
+    assertEquals(
+      "xy" + ABC_SHA256 + "zw",
+      ascii(out));
+  }
+
+  @Test
+  public void testEncodeCSRHash()
+    throws Exception
+  {
+    final CSRDetails details =
+      CSRTestSupport.details(
+        new File("hash-test-nonexistent"), "alice", CSRKeyAlgorithm.ED25519);
+    final CSRHash hash =
+      CSRHash.sha256("abc".getBytes(StandardCharsets.US_ASCII));
+
+    final String expected = ABC_SHA256 + System.lineSeparator();
+    assertEquals(expected, ascii(details.encodeCSRHash(hash)));
+    assertEquals(expected, ascii(details.encodeCSRHash(hash)));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRHashVerificationTest
+{
+  @TempDir
+  Path directory;
+
+  private Path csr;
+  private Path hash;
+  private String hex;
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.csr = this.directory.resolve("x.csr");
+    this.hash = this.directory.resolve("x.csr.sha256");
+
+    final byte[] data = "not really a CSR".getBytes(StandardCharsets.US_ASCII);
+    Files.write(this.csr, data);
+
+    final StringBuilder b = new StringBuilder(64);
+    for (final byte x : MessageDigest.getInstance("SHA-256").digest(data)) {
+      b.append(String.format("%02x", Integer.valueOf(x & 0xff)));
+    }
+    this.hex = b.toString();
+  }
+
+  private boolean verify(
+    final String text)
+    throws Exception
+  {
+    Files.write(this.hash, text.getBytes(StandardCharsets.US_ASCII));
+    return CSRHashVerification.verify(this.csr, this.hash);
+  }
+
+  @Test
+  public void testMatches()
+    throws Exception
+  {
+    assertTrue(this.verify(this.hex));
+    assertTrue(this.verify(this.hex + "\n"));
+    assertTrue(this.verify(this.hex.toUpperCase() + " \r\n"));
+  }
+
+  @Test
+  public void testMismatches()
+    throws Exception
+  {
+    final char first = this.hex.charAt(0) == '0' ? '1' : '0';
+    assertFalse(this.verify(first + this.hex.substring(1)));
+  }
+
+  @Test
+  public void testMalformed()
+    throws Exception
+  {
+    assertFalse(this.verify(""));
+    assertFalse(this.verify(this.hex.substring(2)));
+    assertFalse(this.verify(this.hex + " x"));
+    assertFalse(this.verify("g" + this.hex.substring(1)));
+  }
+
+  @Test
+  public void testOversized()
+    throws Exception
+  {
+    final char[] padding = new char[8192];
+    Arrays.fill(padding, ' ');
+    assertFalse(this.verify(this.hex + new String(padding)));
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRJournalTest
+{
+  private static CSRDetails details(
+    final Path directory,
+    final String name,
+    final CSRKeyAlgorithm algorithm)
+    throws ValidationProblem
+  {
+    final CSRUserNamePolicy policy =
+      new CSRUserNamePolicy(" -~", 1, 64, Collections.emptySet());
+    return new CSRDetails(
+      new CSRUserName(name, policy),
+      CSRTestSupport.password(),
+      algorithm,
+      directory.toFile());
+  }
+
+  private static CSRHash hash(
+    final String text)
+  {
+    return CSRHash.sha256(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void complete(
+    final CSRJournal journal,
+    final CSRDetails details)
+  {
+    journal.onStageStarted(details, CSRStage.KEY_GENERATION);
+    journal.onCompleted(details, hash(details.getUserName().toString()), 0L);
+  }
+
+  @Test
+  public void testResume(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path file = directory.resolve("journal");
+    final CSRDetails alice = details(directory, "alice", CSRKeyAlgorithm.ED25519);
+    final CSRDetails bob = details(directory, "bob smith%20", CSRKeyAlgorithm.ED25519);
+    final CSRDetails carol = details(directory, "carol", CSRKeyAlgorithm.ED25519);
+    final CSRDetails dave = details(directory, "dave", CSRKeyAlgorithm.ED25519);
+
+    try (CSRJournal journal = CSRJournal.open(file, 10, true)) {
+      complete(journal, alice);
+      complete(journal, bob);
+      journal.onStageStarted(carol, CSRStage.KEY_GENERATION);
+      journal.onFailed(carol, new IOException("Failed"), 0L);
+      journal.onStageStarted(dave, CSRStage.KEY_GENERATION);
+    }
+
+    try (CSRJournal journal = CSRJournal.open(file, 10, true)) {
+      assertEquals(hash("alice").toString(), journal.committedHash(alice));
+      assertEquals(hash("bob smith%20").toString(), journal.committedHash(bob));
+      assertNull(journal.committedHash(carol));
+      assertNull(journal.committedHash(dave));
+      assertNull(journal.committedAlgorithm(carol));
+
+      final CSRDetails alice_ec =
+        details(directory, "alice", CSRKeyAlgorithm.EC_P256);
+      assertNull(journal.committedHash(alice_ec));
+      assertEquals("ED25519", journal.committedAlgorithm(alice_ec));
+    }
+  }
+
+  @Test
+  public void testRestartInvalidatesCommit(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path file = directory.resolve("journal");
+    final CSRDetails alice = details(directory, "alice", CSRKeyAlgorithm.ED25519);
+
+    try (CSRJournal journal = CSRJournal.open(file, 10, false)) {
+      complete(journal, alice);
+    }
+    try (CSRJournal journal = CSRJournal.open(file, 10, false)) {
+      journal.onStageStarted(alice, CSRStage.KEY_GENERATION);
+    }
+    try (CSRJournal journal = CSRJournal.open(file, 10, false)) {
+      assertNull(journal.committedHash(alice));
+    }
+  }
+
+  @Test
+  public void testIncompleteRecordIgnored(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path file = directory.resolve("journal");
+    final CSRDetails alice = details(directory, "alice", CSRKeyAlgorithm.ED25519);
+    final CSRDetails bob = details(directory, "bob", CSRKeyAlgorithm.ED25519);
+
+    Files.write(
+      file,
+      "C ED25519 0123 alice\nC ED25519 4567 bo".getBytes(StandardCharsets.US_ASCII));
+
+    try (CSRJournal journal = CSRJournal.open(file, 10, true)) {
+      assertEquals("0123", journal.committedHash(alice));
+      assertNull(journal.committedHash(bob));
+      complete(journal, bob);
+    }
+    try (CSRJournal journal = CSRJournal.open(file, 10, true)) {
+      assertEquals("0123", journal.committedHash(alice));
+      assertEquals(hash("bob").toString(), journal.committedHash(bob));
+    }
+  }
+
+  @Test
+  public void testMaximumNames(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path file = directory.resolve("journal");
+    try (CSRJournal journal = CSRJournal.open(file, 3, true)) {
+      complete(journal, details(directory, "alice", CSRKeyAlgorithm.ED25519));
+      complete(journal, details(directory, "bob", CSRKeyAlgorithm.ED25519));
+      complete(journal, details(directory, "carol", CSRKeyAlgorithm.ED25519));
+    }
+
+    final IOException e =
+      assertThrows(IOException.class, () -> CSRJournal.open(file, 2, true));
+    assertTrue(e.getMessage().contains("more than 2 committed names"));
+  }
+
+  @Test
+  public void testEscape()
+  {
+    assertEquals("alice", CSRJournal.escape("alice"));
+    assertEquals("a%20b%25%C3%A9", CSRJournal.escape("a b%é"));
+    assertEquals("a b%é", CSRJournal.unescape("a%20b%25%C3%A9"));
+    assertEquals("a b%é", CSRJournal.unescape("a%20b%25%c3%a9"));
+    assertNull(CSRJournal.unescape("a%2"));
+    assertNull(CSRJournal.unescape("a%zz"));
+    assertNull(CSRJournal.unescape("a b"));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CSRKeyAlgorithmTest
+{
+  @Test
+  public void testParse()
+    throws Exception
+  {
+    for (final CSRKeyAlgorithm a : CSRKeyAlgorithm.values()) {
+      assertEquals(a, CSRKeyAlgorithm.parse(a.name()));
+      assertEquals(a, CSRKeyAlgorithm.parse(a.name().toLowerCase(Locale.ROOT)));
+    }
+    assertEquals(CSRKeyAlgorithm.ED25519, CSRKeyAlgorithm.parse(" ed25519 "));
+  }
+
+  @Test
+  public void testParseUnknown()
+  {
+    assertThrows(
+      ValidationProblem.class, () -> CSRKeyAlgorithm.parse("DSA_1024"));
+    assertThrows(
+      ValidationProblem.class, () -> CSRKeyAlgorithm.parse(""));
+  }
+
+  @Test
+  public void testSignatureAlgorithms()
+  {
+    for (final CSRKeyAlgorithm a : CSRKeyAlgorithm.values()) {
+      assertNotNull(a.getSignatureAlgorithm().getAlgorithm(), a.name());
+    }
+  }
+
+  @Test
+  public void testRSAKeySizes()
+    throws Exception
+  {
+    assertEquals(2048, rsaBits(CSRKeyAlgorithm.RSA_2048));
+    assertEquals(3072, rsaBits(CSRKeyAlgorithm.RSA_3072));
+    assertEquals(4096, rsaBits(CSRKeyAlgorithm.RSA_4096));
+  }
+
+  @Test
+  public void testECCurves()
+    throws Exception
+  {
+    assertEquals(256, ecBits(CSRKeyAlgorithm.EC_P256));
+    assertEquals(384, ecBits(CSRKeyAlgorithm.EC_P384));
+  }
+
+  @Test
+  public void testEd25519()
+    throws Exception
+  {
+    final KeyPair k = CSRKeyAlgorithm.ED25519.generateKeyPair();
+    assertEquals("Ed25519", k.getPublic().getAlgorithm());
+  }
+
+  private static int rsaBits(
+    final CSRKeyAlgorithm a)
+    throws Exception
+  {
+    final KeyPair k = a.generateKeyPair();
+    return ((RSAPublicKey) k.getPublic()).getModulus().bitLength();
+  }
+
+  private static int ecBits(
+    final CSRKeyAlgorithm a)
+    throws Exception
+  {
+    final KeyPair k = a.generateKeyPair();
+    return ((ECPublicKey) k.getPublic()).getParams().getCurve().getField().getFieldSize();
+  }
+}
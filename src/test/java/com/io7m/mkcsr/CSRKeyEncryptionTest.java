@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRKeyEncryptionTest
+{
+  @Test
+  public void testFloorsNotBelowPreviousDefaults()
+  {
+    assertTrue(
+      CSRKeyEncryptionScheme.PBES2_AES256_SHA256.getMinimumCost() >= 100000);
+    assertTrue(
+      CSRKeyEncryptionScheme.PBE_SHA1_3DES.getMinimumCost() >= 100000);
+    assertTrue(
+      CSRKeyEncryptionScheme.SCRYPT_AES256.getMinimumCost() >= 16384);
+
+    for (final CSRKeyEncryptionScheme s : CSRKeyEncryptionScheme.values()) {
+      assertTrue(s.getDefaultCost() >= s.getMinimumCost(), s.name());
+    }
+  }
+
+  @Test
+  public void testExplicitCostRaisedToFloor()
+  {
+    for (final CSRKeyEncryptionScheme s : CSRKeyEncryptionScheme.values()) {
+      assertEquals(
+        s.getMinimumCost(), new CSRKeyEncryption(s, 1).getCost(), s.name());
+    }
+  }
+
+  @Test
+  public void testCalibrationRespectsFloor()
+    throws Exception
+  {
+    for (final CSRKeyEncryptionScheme s : CSRKeyEncryptionScheme.values()) {
+      final CSRKeyEncryption e = CSRKeyEncryption.calibrate(s, 1L);
+      assertTrue(e.getCost() >= s.getMinimumCost(), s.name());
+    }
+  }
+
+  @Test
+  public void testScryptMemoryBounded()
+  {
+    final int n_max = CSRKeyEncryptionScheme.scryptMaximumN();
+    assertTrue(n_max <= 1 << 20);
+    assertTrue(n_max >= CSRKeyEncryptionScheme.SCRYPT_AES256.getMinimumCost());
+    assertEquals(1, Integer.bitCount(n_max));
+
+    final int cost = CSRKeyEncryptionScheme.SCRYPT_AES256.roundCost(1L << 40);
+    assertEquals(n_max, CSRKeyEncryptionScheme.scryptN(cost));
+    assertEquals(cost, n_max * CSRKeyEncryptionScheme.scryptP(cost));
+  }
+
+  @Test
+  public void testScryptLowCostUsesN()
+  {
+    assertEquals(16384, CSRKeyEncryptionScheme.scryptN(16384));
+    assertEquals(1, CSRKeyEncryptionScheme.scryptP(16384));
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRKeyPoolTest
+{
+  private static void await(
+    final BooleanSupplier condition)
+    throws InterruptedException
+  {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "Timed out");
+      Thread.sleep(10L);
+    }
+  }
+
+  @Test
+  public void testFillsToHighWatermark()
+    throws Exception
+  {
+    try (CSRKeyPool pool =
+           CSRKeyPool.create(CSRKeyAlgorithm.ED25519, 2, 4, 8, 2)) {
+      await(() -> pool.size() == 4);
+      Thread.sleep(100L);
+      assertEquals(4, pool.size());
+    }
+  }
+
+  @Test
+  public void testRefillsBelowLowWatermark()
+    throws Exception
+  {
+    try (CSRKeyPool pool =
+           CSRKeyPool.create(CSRKeyAlgorithm.ED25519, 2, 4, 4, 1)) {
+      await(() -> pool.size() == 4);
+
+      final String message = "Using pre-generated private key...";
+      pool.keyPair(CSRKeyAlgorithm.ED25519, m -> assertEquals(message, m));
+      pool.keyPair(CSRKeyAlgorithm.ED25519, m -> assertEquals(message, m));
+      assertEquals(2, pool.size());
+
+      pool.keyPair(CSRKeyAlgorithm.ED25519, m -> assertEquals(message, m));
+      await(() -> pool.size() == 4);
+    }
+  }
+
+  @Test
+  public void testOtherAlgorithmsBypassPool()
+    throws Exception
+  {
+    try (CSRKeyPool pool =
+           CSRKeyPool.create(CSRKeyAlgorithm.ED25519, 1, 2, 2, 1)) {
+      await(() -> pool.size() == 2);
+      final KeyPair k = pool.keyPair(CSRKeyAlgorithm.EC_P256, m -> { });
+      assertEquals("EC", k.getPrivate().getAlgorithm());
+      assertEquals(2, pool.size());
+    }
+  }
+
+  @Test
+  public void testCapacityBelowHighWatermarkRefused()
+  {
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> CSRKeyPool.create(CSRKeyAlgorithm.ED25519, 1, 4, 2, 1));
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> CSRKeyPool.create(CSRKeyAlgorithm.ED25519, 4, 2, 4, 1));
+  }
+
+  @Test
+  public void testCloseEmptiesPool()
+    throws Exception
+  {
+    final CSRKeyPool pool =
+      CSRKeyPool.create(CSRKeyAlgorithm.ED25519, 1, 2, 2, 1);
+    await(() -> pool.size() == 2);
+    pool.close();
+    assertEquals(0, pool.size());
+    assertThrows(
+      IllegalStateException.class,
+      () -> pool.keyPair(CSRKeyAlgorithm.ED25519, m -> { }));
+  }
+
+  @Test
+  public void testTakenKeyIsDestroyed()
+    throws Exception
+  {
+    final KeyPair original = CSRKeyAlgorithm.ED25519.generateKeyPair();
+    final CSRKeyPool.PooledKeyPair k = new CSRKeyPool.PooledKeyPair(original);
+    assertFalse(k.isDestroyed());
+
+    final KeyPair taken = k.take();
+    assertNotNull(taken.getPrivate());
+    assertTrue(k.isDestroyed());
+    assertThrows(IllegalStateException.class, k::take);
+  }
+
+  @Test
+  public void testDestroyedKeyCannotBeTaken()
+    throws Exception
+  {
+    final CSRKeyPool.PooledKeyPair k =
+      new CSRKeyPool.PooledKeyPair(CSRKeyAlgorithm.ED25519.generateKeyPair());
+    k.destroy();
+    assertTrue(k.isDestroyed());
+    assertThrows(IllegalStateException.class, k::take);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CSRManifestCSVTest
+{
+  @Test
+  public void testUnquotedFieldsTrimmed()
+    throws Exception
+  {
+    assertEquals(
+      Arrays.asList("alice", "ED25519", ""),
+      CSRManifestCSV.split("  alice , ED25519 ,"));
+  }
+
+  @Test
+  public void testEmptyLine()
+    throws Exception
+  {
+    assertEquals(Collections.singletonList(""), CSRManifestCSV.split(""));
+  }
+
+  @Test
+  public void testQuotedCommas()
+    throws Exception
+  {
+    assertEquals(
+      Arrays.asList("alice", "pass,word", "x"),
+      CSRManifestCSV.split("alice,\"pass,word\",x"));
+  }
+
+  @Test
+  public void testQuotedQuotes()
+    throws Exception
+  {
+    assertEquals(
+      Arrays.asList("say \"hi\"", ""),
+      CSRManifestCSV.split("\"say \"\"hi\"\"\",\"\""));
+  }
+
+  @Test
+  public void testQuotedSpacesKept()
+    throws Exception
+  {
+    assertEquals(
+      Arrays.asList(" a b ", "c"),
+      CSRManifestCSV.split("  \" a b \"  ,c"));
+  }
+
+  @Test
+  public void testUnterminatedQuote()
+  {
+    final ValidationProblem e =
+      assertThrows(ValidationProblem.class, () -> CSRManifestCSV.split("alice,\"pass"));
+    assertEquals("Unterminated quoted field", e.getMessage());
+  }
+
+  @Test
+  public void testTextAfterQuote()
+  {
+    final ValidationProblem e =
+      assertThrows(ValidationProblem.class, () -> CSRManifestCSV.split("\"alice\"x,b"));
+    assertEquals("Unexpected text after quoted field at column 8", e.getMessage());
+  }
+}
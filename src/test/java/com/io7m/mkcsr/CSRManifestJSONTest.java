@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRManifestJSONTest
+{
+  @Test
+  public void testMembers()
+    throws Exception
+  {
+    final Map<String, String> m =
+      CSRManifestJSON.parseObject(
+        " { \"name\" : \"alice\" , \"algorithm\":\"ED25519\", \"password\": null } ");
+    assertEquals(2, m.size());
+    assertEquals("alice", m.get("name"));
+    assertEquals("ED25519", m.get("algorithm"));
+    assertFalse(m.containsKey("password"));
+  }
+
+  @Test
+  public void testEmptyObject()
+    throws Exception
+  {
+    assertTrue(CSRManifestJSON.parseObject("{}").isEmpty());
+  }
+
+  @Test
+  public void testEscapes()
+    throws Exception
+  {
+    final Map<String, String> m =
+      CSRManifestJSON.parseObject(
+        "{\"p\": \"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\u0041,}\"}");
+    assertEquals("\"\\/\b\f\n\r\t\u00e9A,}", m.get("p"));
+  }
+
+  @Test
+  public void testEscapedKey()
+    throws Exception
+  {
+    final Map<String, String> m =
+      CSRManifestJSON.parseObject("{\"n\\u0061me\": \"alice\"}");
+    assertEquals("alice", m.get("name"));
+  }
+
+  private static String error(
+    final String text)
+  {
+    return assertThrows(
+      ValidationProblem.class, () -> CSRManifestJSON.parseObject(text)).getMessage();
+  }
+
+  @Test
+  public void testInvalid()
+  {
+    assertEquals("Invalid escape '\\x' at column 11", error("{\"p\": \"a\\x\"}"));
+    assertEquals("Invalid unicode escape at column 12", error("{\"p\": \"\\u00g0\"}"));
+    assertEquals("Truncated unicode escape at column 10", error("{\"p\": \"\\u00"));
+    assertEquals("Unterminated escape at column 9", error("{\"p\": \"\\"));
+    assertEquals("Unterminated string at column 11", error("{\"p\": \"abc"));
+    assertEquals("Expected '\"' at column 7", error("{\"p\": 1}"));
+    assertEquals("Unexpected text after object at column 4", error("{} {}"));
+    assertEquals("Expected '}' at column 11", error("{\"p\": \"a\" \"q\"}"));
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRManifestReaderTest
+{
+  private static List<String> names(
+    final Path manifest,
+    final Path rejects)
+    throws Exception
+  {
+    return names(manifest, rejects, 1000);
+  }
+
+  private static List<String> names(
+    final Path manifest,
+    final Path rejects,
+    final int maximum)
+    throws Exception
+  {
+    final char[] pass = "password1".toCharArray();
+    final List<String> names = new ArrayList<>(4);
+    try (CSRManifestReader reader =
+           CSRManifestReader.open(
+             manifest,
+             rejects,
+             new CSRPassword(pass, pass.clone()),
+             CSRKeyAlgorithm.ED25519,
+             manifest.getParent().resolve("out").toFile(),
+             CSROutputLayout.FLAT,
+             maximum)) {
+      while (reader.hasNext()) {
+        names.add(reader.next().getUserName().toString());
+      }
+      assertEquals(names.size(), reader.getAccepted());
+    }
+    return names;
+  }
+
+  private static Path write(
+    final Path directory,
+    final String name,
+    final String... lines)
+    throws IOException
+  {
+    final Path file = directory.resolve(name);
+    Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    return file;
+  }
+
+  @Test
+  public void testDuplicateNamesRejected(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path manifest =
+      write(directory, "m.txt", "alice", "bob", "alice", "ALICE", "carol");
+    final Path rejects = directory.resolve("m.rejects");
+
+    assertEquals(Arrays.asList("alice", "bob", "carol"), names(manifest, rejects));
+
+    final List<String> lines = Files.readAllLines(rejects, StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).endsWith(":3: Duplicate name 'alice' (first given on line 1)"));
+    assertTrue(lines.get(1).endsWith(":4: Duplicate name 'ALICE' (first given on line 1)"));
+  }
+
+  @Test
+  public void testDuplicateNamesRejectedCSV(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path manifest =
+      write(directory, "m.csv", "name,algorithm", "alice,ED25519", "alice,EC_P256");
+    final Path rejects = directory.resolve("m.rejects");
+
+    assertEquals(Arrays.asList("alice"), names(manifest, rejects));
+    assertEquals(1, Files.readAllLines(rejects, StandardCharsets.UTF_8).size());
+  }
+
+  @Test
+  public void testNoRejectsFileWithoutDuplicates(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path manifest = write(directory, "m.txt", "alice", "bob");
+    final Path rejects = directory.resolve("m.rejects");
+
+    assertEquals(Arrays.asList("alice", "bob"), names(manifest, rejects));
+    assertFalse(Files.exists(rejects));
+  }
+
+  @Test
+  public void testDuplicateNamesBounded(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path manifest =
+      write(directory, "m.txt", "alice", "bob", "carol", "alice", "carol");
+    final Path rejects = directory.resolve("m.rejects");
+
+    assertEquals(
+      Arrays.asList("alice", "bob", "carol", "carol"),
+      names(manifest, rejects, 2));
+
+    final List<String> lines = Files.readAllLines(rejects, StandardCharsets.UTF_8);
+    assertEquals(1, lines.size());
+    assertTrue(lines.get(0).endsWith(":4: Duplicate name 'alice' (first given on line 1)"));
+  }
+
+  @Test
+  public void testQuotedAndEscapedNames(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path csv =
+      write(directory, "m.csv", "algorithm,name", "ED25519, \"alice\" ", "\"EC_P256\",bob");
+    assertEquals(
+      Arrays.asList("alice", "bob"),
+      names(csv, directory.resolve("csv.rejects")));
+
+    final Path json =
+      write(
+        directory,
+        "m.ndjson",
+        "{\"name\": \"\\u0061lice\"}",
+        "{\"name\": \"bob\", \"password\": null}");
+    assertEquals(
+      Arrays.asList("alice", "bob"),
+      names(json, directory.resolve("json.rejects")));
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRMetricsTest
+{
+  @Test
+  public void testRequestDurationByOutcome()
+  {
+    final CSRMetrics metrics = new CSRMetrics();
+    metrics.onFailed(null, new IOException("x"), 1000L);
+
+    final String text = metrics.render();
+    assertTrue(text.contains(
+      "mkcsr_request_duration_seconds_count{outcome=\"completed\"} 0"));
+    assertTrue(text.contains(
+      "mkcsr_request_duration_seconds_count{outcome=\"failed\"} 1"));
+  }
+
+  @Test
+  public void testWrittenBytesOnlyForWriteStages()
+  {
+    final CSRMetrics metrics = new CSRMetrics();
+    metrics.onBytesWritten(null, CSRStage.CSR_WRITE, null, 100L);
+    metrics.onBytesWritten(null, CSRStage.COMMIT, null, 100L);
+
+    final String text = metrics.render();
+    assertTrue(text.contains(
+      "mkcsr_written_bytes_total{stage=\"csr_write\"} 100"));
+    assertTrue(text.contains(
+      "mkcsr_written_bytes_total{stage=\"key_write\"} 0"));
+    assertFalse(text.contains(
+      "mkcsr_written_bytes_total{stage=\"commit\"}"));
+    assertFalse(text.contains(
+      "mkcsr_written_bytes_total{stage=\"key_generation\"}"));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRNameIndexTest
+{
+  @Test
+  public void testPutGet()
+  {
+    final CSRNameIndex index = new CSRNameIndex(100000);
+    for (int k = 0; k < 100000; ++k) {
+      assertTrue(index.put("user" + k, k));
+    }
+    assertEquals(100000, index.size());
+    assertTrue(index.isFull());
+
+    for (int k = 0; k < 100000; ++k) {
+      assertEquals(k, index.get("user" + k));
+    }
+    assertEquals(CSRNameIndex.NONE, index.get("user100000"));
+    assertEquals(CSRNameIndex.NONE, index.get(""));
+  }
+
+  @Test
+  public void testReplace()
+  {
+    final CSRNameIndex index = new CSRNameIndex(1);
+    assertTrue(index.put("alice", 1L));
+    assertTrue(index.put("alice", 2L));
+    assertEquals(2L, index.get("alice"));
+    assertEquals(1, index.size());
+  }
+
+  @Test
+  public void testFull()
+  {
+    final CSRNameIndex index = new CSRNameIndex(2);
+    assertTrue(index.put("alice", 1L));
+    assertTrue(index.put("bob", 2L));
+    assertFalse(index.put("carol", 3L));
+    assertEquals(CSRNameIndex.NONE, index.get("carol"));
+    assertTrue(index.put("bob", 4L));
+    assertEquals(4L, index.get("bob"));
+  }
+
+  @Test
+  public void testRemove()
+  {
+    final CSRNameIndex index = new CSRNameIndex(2);
+    assertTrue(index.put("alice", 1L));
+    index.remove("alice");
+    index.remove("bob");
+    assertEquals(CSRNameIndex.NONE, index.get("alice"));
+    assertEquals(1, index.size());
+    assertTrue(index.put("alice", 3L));
+    assertEquals(3L, index.get("alice"));
+  }
+
+  @Test
+  public void testInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> new CSRNameIndex(0));
+    assertThrows(IllegalArgumentException.class, () -> new CSRNameIndex(1 << 29));
+    assertThrows(
+      IllegalArgumentException.class, () -> new CSRNameIndex(1).put("alice", -1L));
+  }
+}
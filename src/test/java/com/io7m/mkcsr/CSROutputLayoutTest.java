@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CSROutputLayoutTest
+{
+  private static final File ROOT = new File("out");
+
+  @Test
+  public void testFlat()
+  {
+    assertEquals(ROOT, CSROutputLayout.FLAT.directory(ROOT, "alice"));
+  }
+
+  @Test
+  public void testPerIdentity()
+  {
+    assertEquals(
+      new File(ROOT, "alice"),
+      CSROutputLayout.PER_IDENTITY.directory(ROOT, "alice"));
+  }
+
+  @Test
+  public void testHashed()
+  {
+    /*
+     * SHA-256("alice") = 2bd806c9...
+     */
+
+    assertEquals(
+      new File(new File(ROOT, "2b"), "d8"),
+      CSROutputLayout.HASHED.directory(ROOT, "alice"));
+  }
+
+  @Test
+  public void testDetailsUseLayout()
+    throws Exception
+  {
+    final CSRDetails details =
+      new CSRDetails(
+        new CSRUserName("alice"),
+        CSRTestSupport.password(),
+        CSRKeyAlgorithm.ED25519,
+        ROOT,
+        CSROutputLayout.HASHED);
+
+    final File directory = new File(new File(ROOT, "2b"), "d8");
+    assertEquals(directory, details.getDirectory());
+    assertEquals(new File(directory, "alice.key"), details.getPrivateKeyFile());
+    assertEquals(new File(directory, "alice.csr"), details.getCSRFile());
+    assertEquals(new File(directory, "alice.sha256"), details.getHashFile());
+  }
+
+  @Test
+  public void testParse()
+    throws Exception
+  {
+    assertEquals(CSROutputLayout.FLAT, CSROutputLayout.parse("flat"));
+    assertEquals(CSROutputLayout.HASHED, CSROutputLayout.parse(" HASHED "));
+    assertEquals(
+      CSROutputLayout.PER_IDENTITY, CSROutputLayout.parse("per-identity"));
+    assertEquals(
+      CSROutputLayout.PER_IDENTITY, CSROutputLayout.parse("per_identity"));
+    assertThrows(
+      ValidationProblem.class, () -> CSROutputLayout.parse("sharded"));
+  }
+}
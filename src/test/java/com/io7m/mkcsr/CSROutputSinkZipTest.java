@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSROutputSinkZipTest
+{
+  private static byte[] bytes(
+    final String text)
+  {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static void commit(
+    final CSROutputSinkZip sink,
+    final File directory,
+    final String... names)
+    throws Exception
+  {
+    final CSROutputTransactionType t =
+      sink.begin(CSRTestSupport.details(directory, "alice", CSRKeyAlgorithm.ED25519));
+    for (final String name : names) {
+      t.write(new File(directory, name), bytes(name));
+    }
+    t.commit().join();
+  }
+
+  private static List<String> entries(
+    final Path archive)
+    throws IOException
+  {
+    final List<String> names = new ArrayList<>(8);
+    try (ZipFile zip = new ZipFile(archive.toFile())) {
+      for (final ZipEntry e : Collections.list(zip.entries())) {
+        names.add(e.getName());
+        try (InputStream s = zip.getInputStream(e)) {
+          final ByteArrayOutputStream b = new ByteArrayOutputStream();
+          final byte[] buffer = new byte[256];
+          int r = s.read(buffer);
+          while (r >= 0) {
+            b.write(buffer, 0, r);
+            r = s.read(buffer);
+          }
+          assertArrayEquals(bytes(e.getName()), b.toByteArray());
+        }
+      }
+    }
+    return names;
+  }
+
+  private static long files(
+    final Path directory)
+    throws IOException
+  {
+    try (Stream<Path> s = Files.list(directory)) {
+      return s.count();
+    }
+  }
+
+  @Test
+  public void testEntries(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path archive = directory.resolve("out.zip");
+    final File root = directory.resolve("root").toFile();
+
+    try (CSROutputSinkZip sink = CSROutputSinkZip.create(archive, root.toPath())) {
+      commit(sink, root, "bob.key", "bob.csr");
+      commit(sink, root, "sub/alice.key", "sub/alice.csr");
+      assertFalse(Files.exists(archive));
+    }
+
+    assertEquals(
+      Arrays.asList("bob.csr", "bob.key", "sub/alice.csr", "sub/alice.key"),
+      entries(archive));
+    assertEquals(1L, files(directory));
+  }
+
+  @Test
+  public void testDuplicateRejected(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path archive = directory.resolve("out.zip");
+    final File root = directory.toFile();
+
+    try (CSROutputSinkZip sink = CSROutputSinkZip.create(archive, root.toPath())) {
+      commit(sink, root, "alice.csr");
+
+      final CompletionException e =
+        assertThrows(
+          CompletionException.class,
+          () -> commit(sink, root, "alice.key", "alice.csr"));
+      assertTrue(e.getCause().getMessage().endsWith("already contains alice.csr"));
+
+      commit(sink, root, "bob.csr");
+    }
+
+    assertEquals(Arrays.asList("alice.csr", "bob.csr"), entries(archive));
+  }
+
+  @Test
+  public void testFailureAbandonsArchive(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Path archive = directory.resolve("out.zip");
+    final File root = directory.toFile();
+    final char[] name = new char[70000];
+    Arrays.fill(name, 'b');
+
+    final CSROutputSinkZip sink = CSROutputSinkZip.create(archive, root.toPath());
+    commit(sink, root, "alice.csr");
+
+    assertThrows(
+      CompletionException.class,
+      () -> commit(sink, root, "alice.key", String.valueOf(name)));
+
+    final CompletionException e =
+      assertThrows(CompletionException.class, () -> commit(sink, root, "carol.csr"));
+    assertTrue(e.getCause().getMessage().endsWith("is unusable after an earlier failure"));
+
+    assertThrows(IOException.class, sink::close);
+    assertEquals(0L, files(directory));
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CSRPipelineTest
+{
+  private static List<String> files(
+    final Path directory)
+    throws IOException
+  {
+    try (Stream<Path> s = Files.list(directory)) {
+      return s.map(p -> p.getFileName().toString())
+        .sorted()
+        .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * A sink that fails to write any file whose name has the given suffix.
+   */
+
+  private static final class FailingSink implements CSROutputSinkType
+  {
+    private final CSROutputSinkType delegate;
+    private final String suffix;
+
+    FailingSink(
+      final CSROutputSinkType in_delegate,
+      final String in_suffix)
+    {
+      this.delegate = in_delegate;
+      this.suffix = in_suffix;
+    }
+
+    @Override
+    public CSROutputTransactionType begin(
+      final CSRDetails details)
+    {
+      final CSROutputTransactionType t = this.delegate.begin(details);
+      return new CSROutputTransactionType()
+      {
+        @Override
+        public long write(
+          final File file,
+          final byte[] data)
+          throws IOException
+        {
+          if (file.getName().endsWith(FailingSink.this.suffix)) {
+            throw new IOException("Injected failure");
+          }
+          return t.write(file, data);
+        }
+
+        @Override
+        public CompletableFuture<Void> commit()
+        {
+          return t.commit();
+        }
+
+        @Override
+        public void discard()
+        {
+          t.discard();
+        }
+      };
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      this.delegate.close();
+    }
+  }
+
+  /**
+   * A listener that counts events.
+   */
+
+  private static final class Recorder implements CSRProgressListenerType
+  {
+    private final EnumMap<CSRStage, AtomicInteger> started;
+    private final EnumMap<CSRStage, AtomicInteger> finished;
+    private final EnumMap<CSRStage, AtomicInteger> failed;
+    private final EnumMap<CSRStage, AtomicInteger> written;
+    private final AtomicInteger completed;
+    private final AtomicInteger failures;
+
+    Recorder()
+    {
+      this.started = counters();
+      this.finished = counters();
+      this.failed = counters();
+      this.written = counters();
+      this.completed = new AtomicInteger();
+      this.failures = new AtomicInteger();
+    }
+
+    private static EnumMap<CSRStage, AtomicInteger> counters()
+    {
+      final EnumMap<CSRStage, AtomicInteger> m = new EnumMap<>(CSRStage.class);
+      for (final CSRStage s : CSRStage.values()) {
+        m.put(s, new AtomicInteger());
+      }
+      return m;
+    }
+
+    @Override
+    public void onStageStarted(
+      final CSRDetails details,
+      final CSRStage stage)
+    {
+      this.started.get(stage).incrementAndGet();
+    }
+
+    @Override
+    public void onStageFinished(
+      final CSRDetails details,
+      final CSRStage stage,
+      final long elapsed_nanos)
+    {
+      assertTrue(elapsed_nanos >= 0L);
+      this.finished.get(stage).incrementAndGet();
+    }
+
+    @Override
+    public void onStageFailed(
+      final CSRDetails details,
+      final CSRStage stage,
+      final long elapsed_nanos,
+      final Throwable error)
+    {
+      this.failed.get(stage).incrementAndGet();
+    }
+
+    @Override
+    public void onBytesWritten(
+      final CSRDetails details,
+      final CSRStage stage,
+      final File file,
+      final long size)
+    {
+      assertTrue(size > 0L);
+      this.written.get(stage).incrementAndGet();
+    }
+
+    @Override
+    public void onCompleted(
+      final CSRDetails details,
+      final CSRHash hash,
+      final long elapsed_nanos)
+    {
+      this.completed.incrementAndGet();
+    }
+
+    @Override
+    public void onFailed(
+      final CSRDetails details,
+      final Throwable error,
+      final long elapsed_nanos)
+    {
+      this.failures.incrementAndGet();
+    }
+  }
+
+  private static void executeFailing(
+    final Path directory,
+    final String suffix)
+    throws Exception
+  {
+    executeFailing(directory, suffix, CSRTestSupport.listener());
+  }
+
+  private static void executeFailing(
+    final Path directory,
+    final String suffix,
+    final CSRProgressListenerType listener)
+    throws Exception
+  {
+    final CSRDetails details =
+      CSRTestSupport.details(directory.toFile(), "alice", CSRKeyAlgorithm.ED25519);
+
+    try (CSRStageExecutor stages = CSRStageExecutor.create(2);
+         CSROutputSinkType sink =
+           new FailingSink(CSROutputSinkFiles.createInline(), suffix)) {
+      final CompletableFuture<CSRHash> f =
+        CSRPipeline.executeAsync(
+          stages,
+          sink,
+          details,
+          new CSRKeyPairSourceDirect(),
+          CSRKeyEncryption.defaults(),
+          listener);
+      final CompletionException e =
+        assertThrows(CompletionException.class, f::join);
+      assertEquals("Injected failure", CSRStageExecutor.unwrap(e).getMessage());
+    }
+  }
+
+  @Test
+  public void testSuccessLeavesOnlyFinalFiles(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final CSRDetails details =
+      CSRTestSupport.details(directory.toFile(), "alice", CSRKeyAlgorithm.ED25519);
+    CSRPipeline.execute(
+      details,
+      new CSRKeyPairSourceDirect(),
+      CSRKeyEncryption.defaults(),
+      CSRTestSupport.listener());
+
+    final List<String> expected = new ArrayList<>(3);
+    expected.add("alice.csr");
+    expected.add("alice.key");
+    expected.add("alice.sha256");
+    assertEquals(expected, files(directory));
+  }
+
+  @Test
+  public void testFailedCSRWriteLeavesNoFiles(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    executeFailing(directory, ".csr");
+    assertEquals(new ArrayList<String>(), files(directory));
+  }
+
+  @Test
+  public void testFailedKeyWriteLeavesNoFiles(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    executeFailing(directory, ".key");
+    assertEquals(new ArrayList<String>(), files(directory));
+  }
+
+  @Test
+  public void testFailedHashWriteLeavesNoFiles(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    executeFailing(directory, ".sha256");
+    assertEquals(new ArrayList<String>(), files(directory));
+  }
+
+  @Test
+  public void testEventsOnSuccess(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Recorder r = new Recorder();
+    CSRPipeline.execute(
+      CSRTestSupport.details(directory.toFile(), "alice", CSRKeyAlgorithm.ED25519),
+      new CSRKeyPairSourceDirect(),
+      CSRKeyEncryption.defaults(),
+      r);
+
+    for (final CSRStage s : CSRStage.values()) {
+      assertEquals(1, r.started.get(s).get(), s.name());
+      assertEquals(1, r.finished.get(s).get(), s.name());
+      assertEquals(0, r.failed.get(s).get(), s.name());
+    }
+    assertEquals(1, r.written.get(CSRStage.KEY_WRITE).get());
+    assertEquals(1, r.written.get(CSRStage.CSR_WRITE).get());
+    assertEquals(1, r.written.get(CSRStage.HASH_WRITE).get());
+    assertEquals(1, r.completed.get());
+    assertEquals(0, r.failures.get());
+  }
+
+  @Test
+  public void testEventsOnFailure(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final Recorder r = new Recorder();
+    executeFailing(directory, ".sha256", r);
+
+    for (final CSRStage s : CSRStage.values()) {
+      assertEquals(
+        r.started.get(s).get(),
+        r.finished.get(s).get() + r.failed.get(s).get(),
+        s.name());
+    }
+    assertEquals(1, r.failed.get(CSRStage.HASH_WRITE).get());
+    assertEquals(0, r.started.get(CSRStage.COMMIT).get());
+    assertEquals(0, r.completed.get());
+    assertEquals(1, r.failures.get());
+  }
+}
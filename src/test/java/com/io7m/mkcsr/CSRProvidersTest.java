@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Test;
+
+import java.security.Provider;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRProvidersTest
+{
+  @Test
+  public void testNameDistinct()
+  {
+    final Provider p = CSRProviders.bouncyCastle();
+    assertSame(p, CSRProviders.bouncyCastle());
+    assertEquals(CSRProviders.NAME, p.getName());
+    assertNotEquals(BouncyCastleProvider.PROVIDER_NAME, p.getName());
+  }
+
+  @Test
+  public void testVersionPinned()
+  {
+    final Provider full = new BouncyCastleProvider();
+    assertEquals(
+      full.getVersion(),
+      CSRProviders.bouncyCastle().getVersion(),
+      "The provider mappings must be reviewed for this BouncyCastle version");
+  }
+
+  @Test
+  public void testMappingsMatchFullProvider()
+  {
+    final Provider full = new BouncyCastleProvider();
+    int checked = 0;
+    for (final Map.Entry<Object, Object> e : CSRProviders.bouncyCastle().entrySet()) {
+      final String key = (String) e.getKey();
+      if (key.startsWith("Provider.")) {
+        continue;
+      }
+      assertEquals(full.get(key), e.getValue(), key);
+      ++checked;
+    }
+    assertTrue(checked > 0);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CSRRandomnessTest
+{
+  private static SecureRandom onOtherThread(
+    final CSRRandomness randomness)
+    throws Exception
+  {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      return CompletableFuture.supplyAsync(randomness::random, executor).get();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPerThread()
+    throws Exception
+  {
+    final CSRRandomness r = new CSRRandomness(null, false, 0L);
+    final SecureRandom here = r.random();
+    assertSame(here, r.random());
+    assertNotSame(here, onOtherThread(r));
+  }
+
+  @Test
+  public void testShared()
+    throws Exception
+  {
+    final CSRRandomness r = new CSRRandomness(null, true, 0L);
+    final SecureRandom here = r.random();
+    assertSame(here, r.random());
+    assertSame(here, onOtherThread(r));
+  }
+
+  @Test
+  public void testAlgorithm()
+    throws Exception
+  {
+    final CSRRandomness r = new CSRRandomness("SHA1PRNG", false, 0L);
+    assertEquals("SHA1PRNG", r.random().getAlgorithm());
+    assertEquals("SHA1PRNG", onOtherThread(r).getAlgorithm());
+    assertEquals("SHA1PRNG", new CSRRandomness("SHA1PRNG", true, 0L).random().getAlgorithm());
+  }
+
+  @Test
+  public void testReseedKeepsInstance()
+    throws Exception
+  {
+    final CSRRandomness r = new CSRRandomness("SHA1PRNG", true, 2L);
+    final SecureRandom first = r.random();
+    for (int index = 0; index < 5; ++index) {
+      assertSame(first, r.random());
+      first.nextInt();
+    }
+  }
+
+  @Test
+  public void testInvalid()
+  {
+    assertThrows(
+      NoSuchAlgorithmException.class,
+      () -> new CSRRandomness("NoSuchRandomAlgorithm", false, 0L));
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new CSRRandomness(null, false, -1L));
+  }
+}
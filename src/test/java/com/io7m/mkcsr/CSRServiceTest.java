@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CSRServiceTest
+{
+  @TempDir
+  Path directory;
+
+  private Path root;
+  private Path outside;
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.root = Files.createDirectory(this.directory.resolve("csr")).toRealPath();
+    this.outside = Files.createDirectory(this.directory.resolve("outside")).toRealPath();
+  }
+
+  @Test
+  public void testOutputRefusedWithoutRoot()
+  {
+    assertThrows(
+      ValidationProblem.class,
+      () -> CSRService.resolveOutput(null, new File("alice")));
+  }
+
+  @Test
+  public void testOutputResolvedAgainstRoot()
+    throws Exception
+  {
+    assertEquals(
+      this.root.resolve("alice").toFile(),
+      CSRService.resolveOutput(this.root, new File("alice")));
+    assertEquals(
+      this.root.resolve("a").resolve("b").toFile(),
+      CSRService.resolveOutput(this.root, new File("a/./c/../b")));
+    assertEquals(
+      this.root.toFile(),
+      CSRService.resolveOutput(this.root, new File(".")));
+  }
+
+  @Test
+  public void testOutputAbsoluteWithinRoot()
+    throws Exception
+  {
+    assertEquals(
+      this.root.resolve("alice").toFile(),
+      CSRService.resolveOutput(this.root, this.root.resolve("alice").toFile()));
+  }
+
+  @Test
+  public void testOutputOutsideRootRefused()
+  {
+    assertThrows(
+      ValidationProblem.class,
+      () -> CSRService.resolveOutput(this.root, new File("..")));
+    assertThrows(
+      ValidationProblem.class,
+      () -> CSRService.resolveOutput(this.root, new File("../csr2")));
+    assertThrows(
+      ValidationProblem.class,
+      () -> CSRService.resolveOutput(this.root, new File("a/../../x")));
+    assertThrows(
+      ValidationProblem.class,
+      () -> CSRService.resolveOutput(this.root, this.outside.toFile()));
+  }
+
+  @Test
+  public void testSymbolicLinkOutOfRootRefused()
+    throws Exception
+  {
+    Files.createSymbolicLink(this.root.resolve("escape"), this.outside);
+
+    assertThrows(
+      ValidationProblem.class,
+      () -> CSRService.resolveOutput(this.root, new File("escape")));
+    assertThrows(
+      ValidationProblem.class,
+      () -> CSRService.resolveOutput(this.root, new File("escape/alice/x")));
+  }
+
+  @Test
+  public void testDanglingSymbolicLinkRefused()
+    throws Exception
+  {
+    Files.createSymbolicLink(
+      this.root.resolve("dangling"), this.outside.resolve("missing"));
+
+    assertThrows(
+      ValidationProblem.class,
+      () -> CSRService.resolveOutput(this.root, new File("dangling/alice")));
+  }
+
+  @Test
+  public void testSymbolicLinkWithinRootAccepted()
+    throws Exception
+  {
+    Files.createDirectory(this.root.resolve("real"));
+    Files.createSymbolicLink(this.root.resolve("link"), this.root.resolve("real"));
+
+    assertEquals(
+      this.root.resolve("link").resolve("alice").toFile(),
+      CSRService.resolveOutput(this.root, new File("link/alice")));
+  }
+}
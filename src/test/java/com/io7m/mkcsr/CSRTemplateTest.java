@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.DERPrintableString;
+import org.bouncycastle.asn1.pkcs.Attribute;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRTemplateTest
+{
+  private static PKCS10CertificationRequest build(
+    final CSRTemplate template,
+    final String name,
+    final CSRKeyAlgorithm algorithm,
+    final KeyPair keypair)
+    throws Exception
+  {
+    final byte[] data = template.build(new CSRUserName(name), algorithm, keypair);
+    final PKCS10CertificationRequest csr = new PKCS10CertificationRequest(data);
+    assertArrayEquals(csr.toASN1Structure().getEncoded(ASN1Encoding.DER), data);
+    assertTrue(
+      csr.isSignatureValid(
+        new JcaContentVerifierProviderBuilder()
+          .setProvider(CSRProviders.bouncyCastle())
+          .build(keypair.getPublic())),
+      algorithm.name());
+    return csr;
+  }
+
+  @Test
+  public void testVerifiesForEveryAlgorithm()
+    throws Exception
+  {
+    for (final CSRKeyAlgorithm a : CSRKeyAlgorithm.values()) {
+      final KeyPair keypair = a.generateKeyPair();
+      final PKCS10CertificationRequest csr =
+        build(CSRTemplate.standard(), "alice", a, keypair);
+
+      assertEquals(new X500Name("CN=alice,C=XA"), csr.getSubject());
+      assertArrayEquals(
+        keypair.getPublic().getEncoded(),
+        csr.getSubjectPublicKeyInfo().getEncoded());
+      assertEquals(a.getSignatureAlgorithm(), csr.getSignatureAlgorithm());
+
+      final Attribute[] attributes =
+        csr.getAttributes(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest);
+      assertEquals(1, attributes.length);
+      final Extensions extensions =
+        Extensions.getInstance(attributes[0].getAttrValues().getObjectAt(0));
+      assertTrue(extensions.getExtension(Extension.basicConstraints).isCritical());
+      assertEquals(
+        new KeyUsage(KeyUsage.dataEncipherment),
+        KeyUsage.fromExtensions(extensions));
+    }
+  }
+
+  @Test
+  public void testLongNames()
+    throws Exception
+  {
+    final CSRUserNamePolicy policy =
+      new CSRUserNamePolicy("a-z", 1, 100000, Collections.emptySet());
+    final char[] name = new char[70000];
+    Arrays.fill(name, 'a');
+
+    final KeyPair keypair = CSRKeyAlgorithm.ED25519.generateKeyPair();
+    for (final int length : new int[]{1, 127, 128, 255, 256, 65535, 65536, 70000}) {
+      final String text = String.valueOf(name, 0, length);
+      final byte[] data =
+        CSRTemplate.standard().build(
+          new CSRUserName(text, policy), CSRKeyAlgorithm.ED25519, keypair);
+      final PKCS10CertificationRequest csr = new PKCS10CertificationRequest(data);
+      assertArrayEquals(csr.toASN1Structure().getEncoded(ASN1Encoding.DER), data);
+      assertEquals(
+        text,
+        csr.getSubject().getRDNs(BCStyle.CN)[0].getFirst().getValue().toString());
+    }
+  }
+
+  @Test
+  public void testTemplatesCached()
+    throws Exception
+  {
+    final ExtensionsGenerator g = new ExtensionsGenerator();
+    g.addExtension(Extension.basicConstraints, true, new BasicConstraints(false));
+    final Extensions extensions = g.generate();
+
+    final RDN[] rdns = {new RDN(BCStyle.C, new DERPrintableString("XB"))};
+    final CSRTemplate t = CSRTemplate.of(rdns, extensions);
+    assertSame(t, CSRTemplate.of(rdns.clone(), extensions));
+    assertNotSame(CSRTemplate.standard(), t);
+
+    final KeyPair keypair = CSRKeyAlgorithm.EC_P256.generateKeyPair();
+    final PKCS10CertificationRequest csr =
+      build(t, "alice", CSRKeyAlgorithm.EC_P256, keypair);
+    assertEquals(new X500Name("CN=alice,C=XB"), csr.getSubject());
+  }
+}
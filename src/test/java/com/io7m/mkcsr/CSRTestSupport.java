@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.io.File;
+
+/**
+ * Functions shared by the tests.
+ */
+
+final class CSRTestSupport
+{
+  private CSRTestSupport()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  static CSRPassword password()
+    throws ValidationProblem
+  {
+    final char[] pass = "test-password".toCharArray();
+    return new CSRPassword(pass, pass.clone());
+  }
+
+  static CSRDetails details(
+    final File directory,
+    final String name,
+    final CSRKeyAlgorithm algorithm)
+    throws ValidationProblem
+  {
+    return new CSRDetails(
+      new CSRUserName(name), password(), algorithm, directory);
+  }
+
+  static CSRProgressListenerType listener()
+  {
+    return new CSRProgressListenerType()
+    {
+      // All events are ignored
+    };
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2026 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.mkcsr;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class CSRUserNamePolicyTest
+{
+  private static CSRUserNamePolicy permissive()
+  {
+    return new CSRUserNamePolicy(
+      " -~", 1, 64, Collections.emptySet());
+  }
+
+  @Test
+  public void testStandardAccepts()
+  {
+    assertTrue(CSRUserNamePolicy.standard().check("alice-example_01").isEmpty());
+  }
+
+  @Test
+  public void testPermissiveAcceptsPrintable()
+  {
+    assertTrue(permissive().check("a.b c~").isEmpty());
+  }
+
+  @Test
+  public void testPermissiveRefusesSeparators()
+  {
+    final CSRUserNamePolicy policy = permissive();
+    assertFalse(policy.isAllowed('/'));
+    assertFalse(policy.isAllowed('\\'));
+    assertEquals(1, policy.check("../x").size());
+    assertEquals(1, policy.check("..\\x").size());
+    assertEquals(1, policy.check("/etc/passwd").size());
+    assertEquals(1, policy.check("a/b").size());
+  }
+
+  @Test
+  public void testPermissiveRefusesDotNames()
+  {
+    final CSRUserNamePolicy policy = permissive();
+    assertEquals(1, policy.check(".").size());
+    assertEquals(1, policy.check("..").size());
+    assertTrue(policy.check("...").isEmpty());
+    assertTrue(policy.check(".a").isEmpty());
+  }
+
+  @Test
+  public void testNulRefused()
+  {
+    final CSRUserNamePolicy policy =
+      new CSRUserNamePolicy("\u0000-~", 1, 64, Collections.emptySet());
+    assertEquals(1, policy.check("a\u0000b").size());
+  }
+
+  @Test
+  public void testValidateThrows()
+  {
+    assertThrows(
+      ValidationProblem.class,
+      () -> new CSRUserName("..", permissive()));
+    assertThrows(
+      ValidationProblem.class,
+      () -> new CSRUserName("../../tmp/x", permissive()));
+  }
+
+  @Test
+  public void testSystemPropertiesCannotPermitSeparators()
+  {
+    System.setProperty("com.io7m.mkcsr.userName.allowed", "./a-z");
+    System.setProperty("com.io7m.mkcsr.userName.minLength", "1");
+    try {
+      final CSRUserNamePolicy policy = CSRUserNamePolicy.fromSystemProperties();
+      assertFalse(policy.isAllowed('/'));
+      assertEquals(1, policy.check("..").size());
+      assertEquals(1, policy.check("a/b").size());
+      assertTrue(policy.check("a.b").isEmpty());
+    } finally {
+      System.clearProperty("com.io7m.mkcsr.userName.allowed");
+      System.clearProperty("com.io7m.mkcsr.userName.minLength");
+    }
+  }
+}